@@ -1,3 +1,6 @@
+import java.util.Comparator;
+import java.util.function.ToLongFunction;
+
 /**
  * A utility class that provides a binary search algorithm implementation.
  */
@@ -17,6 +20,21 @@ public class BinarySearch {
    *         the element is not found
    */
   public static <T extends Comparable<T>> int binarySearch(T[] arr, T element) {
+    return BinarySearch.binarySearch(arr, element, Comparator.<T>naturalOrder());
+  }
+
+  /**
+   * Performs a binary search on an array sorted by the given comparator to find
+   * the index of the first occurrence of the specified element.
+   *
+   * @param <T>        the type of elements in the array
+   * @param arr        the sorted array to search
+   * @param element    the element to search for
+   * @param comparator the comparator the array is sorted by
+   * @return the index of the first occurrence of the specified element, or -1 if
+   *         the element is not found
+   */
+  public static <T> int binarySearch(T[] arr, T element, Comparator<? super T> comparator) {
     if (arr.length < 1) {
       return -1;
     }
@@ -26,11 +44,11 @@ public class BinarySearch {
 
     while (left <= right) {
       int middle = left + (right - left) / 2;
-      int comparison = arr[middle].compareTo(element);
+      int comparison = comparator.compare(arr[middle], element);
 
       if (comparison == 0) {
         // Check for the first occurrence of the element
-        if (middle == 0 || arr[middle - 1].compareTo(element) != 0) {
+        if (middle == 0 || comparator.compare(arr[middle - 1], element) != 0) {
           return middle;
         }
         right = middle - 1;
@@ -42,4 +60,451 @@ public class BinarySearch {
     }
     return -1;
   }
+
+  /**
+   * Performs a binary search on an array sorted by a {@code long} key to find
+   * the index of the first element with the specified key. Keys are compared
+   * as primitives, so no probe element or wrapper object is needed.
+   *
+   * @param <T>          the type of elements in the array
+   * @param arr          the array to search, sorted by the extracted key
+   * @param key          the key to search for
+   * @param keyExtractor the function extracting the key of each element
+   * @return the index of the first element with the specified key, or -1 if
+   *         there is none
+   */
+  public static <T> int binarySearchByKey(T[] arr, long key, ToLongFunction<? super T> keyExtractor) {
+    int index = BinarySearch.lowerBoundByKey(arr, key, keyExtractor);
+    return index < arr.length && keyExtractor.applyAsLong(arr[index]) == key ? index : -1;
+  }
+
+  /**
+   * Returns the index of the first element of an array sorted by a
+   * {@code long} key whose key is not less than the specified one.
+   *
+   * @param <T>          the type of elements in the array
+   * @param arr          the array to search, sorted by the extracted key
+   * @param key          the key to search for
+   * @param keyExtractor the function extracting the key of each element
+   * @return the index of the first element with a key {@code >= key}, or
+   *         {@code arr.length} if there is none
+   */
+  public static <T> int lowerBoundByKey(T[] arr, long key, ToLongFunction<? super T> keyExtractor) {
+    int left = 0;
+    int right = arr.length;
+
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+
+      if (keyExtractor.applyAsLong(arr[middle]) < key) {
+        left = middle + 1;
+      } else {
+        right = middle;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * Returns the index of the first element of an array sorted by a
+   * {@code long} key whose key is greater than the specified one.
+   *
+   * @param <T>          the type of elements in the array
+   * @param arr          the array to search, sorted by the extracted key
+   * @param key          the key to search for
+   * @param keyExtractor the function extracting the key of each element
+   * @return the index of the first element with a key {@code > key}, or
+   *         {@code arr.length} if there is none
+   */
+  public static <T> int upperBoundByKey(T[] arr, long key, ToLongFunction<? super T> keyExtractor) {
+    int left = 0;
+    int right = arr.length;
+
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+
+      if (keyExtractor.applyAsLong(arr[middle]) <= key) {
+        left = middle + 1;
+      } else {
+        right = middle;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * Performs a binary search on a sorted array of int values to find the index
+   * of the first occurrence of the specified element, without boxing.
+   *
+   * @param arr     the sorted array to search
+   * @param element the element to search for
+   * @return the index of the first occurrence of the specified element, or -1 if
+   *         the element is not found
+   */
+  public static int binarySearch(int[] arr, int element) {
+    return BinarySearch.binarySearch(arr, 0, arr.length, element);
+  }
+
+  /**
+   * Performs a binary search on the sorted range {@code [from, to)} of an array
+   * of int values to find the index of the first occurrence of the specified
+   * element.
+   *
+   * @param arr     the array to search
+   * @param from    the index of the first element of the range
+   * @param to      the index after the last element of the range
+   * @param element the element to search for
+   * @return the index of the first occurrence of the specified element, or -1 if
+   *         the element is not found
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static int binarySearch(int[] arr, int from, int to, int element) {
+    int index = BinarySearch.lowerBound(arr, from, to, element);
+    return index < to && arr[index] == element ? index : -1;
+  }
+
+  /**
+   * Returns the index of the first element of a sorted array of int values that
+   * is not less than the specified element.
+   *
+   * @param arr     the sorted array to search
+   * @param element the element to search for
+   * @return the index of the first element {@code >= element}, or
+   *         {@code arr.length} if there is none
+   */
+  public static int lowerBound(int[] arr, int element) {
+    return BinarySearch.lowerBound(arr, 0, arr.length, element);
+  }
+
+  /**
+   * Returns the index of the first element of the sorted range
+   * {@code [from, to)} that is not less than the specified element.
+   *
+   * @param arr     the array to search
+   * @param from    the index of the first element of the range
+   * @param to      the index after the last element of the range
+   * @param element the element to search for
+   * @return the index of the first element {@code >= element}, or {@code to}
+   *         if there is none
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static int lowerBound(int[] arr, int from, int to, int element) {
+    BinarySearch.rangeCheck(arr.length, from, to);
+
+    int left = from;
+    int right = to;
+
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+
+      if (arr[middle] < element) {
+        left = middle + 1;
+      } else {
+        right = middle;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * Returns the index of the first element of a sorted array of int values that
+   * is greater than the specified element.
+   *
+   * @param arr     the sorted array to search
+   * @param element the element to search for
+   * @return the index of the first element {@code > element}, or
+   *         {@code arr.length} if there is none
+   */
+  public static int upperBound(int[] arr, int element) {
+    return BinarySearch.upperBound(arr, 0, arr.length, element);
+  }
+
+  /**
+   * Returns the index of the first element of the sorted range
+   * {@code [from, to)} that is greater than the specified element.
+   *
+   * @param arr     the array to search
+   * @param from    the index of the first element of the range
+   * @param to      the index after the last element of the range
+   * @param element the element to search for
+   * @return the index of the first element {@code > element}, or {@code to}
+   *         if there is none
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static int upperBound(int[] arr, int from, int to, int element) {
+    BinarySearch.rangeCheck(arr.length, from, to);
+
+    int left = from;
+    int right = to;
+
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+
+      if (arr[middle] <= element) {
+        left = middle + 1;
+      } else {
+        right = middle;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * Performs a binary search on a sorted array of long values to find the index
+   * of the first occurrence of the specified element, without boxing.
+   *
+   * @param arr     the sorted array to search
+   * @param element the element to search for
+   * @return the index of the first occurrence of the specified element, or -1 if
+   *         the element is not found
+   */
+  public static int binarySearch(long[] arr, long element) {
+    return BinarySearch.binarySearch(arr, 0, arr.length, element);
+  }
+
+  /**
+   * Performs a binary search on the sorted range {@code [from, to)} of an array
+   * of long values to find the index of the first occurrence of the specified
+   * element.
+   *
+   * @param arr     the array to search
+   * @param from    the index of the first element of the range
+   * @param to      the index after the last element of the range
+   * @param element the element to search for
+   * @return the index of the first occurrence of the specified element, or -1 if
+   *         the element is not found
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static int binarySearch(long[] arr, int from, int to, long element) {
+    int index = BinarySearch.lowerBound(arr, from, to, element);
+    return index < to && arr[index] == element ? index : -1;
+  }
+
+  /**
+   * Returns the index of the first element of a sorted array of long values that
+   * is not less than the specified element.
+   *
+   * @param arr     the sorted array to search
+   * @param element the element to search for
+   * @return the index of the first element {@code >= element}, or
+   *         {@code arr.length} if there is none
+   */
+  public static int lowerBound(long[] arr, long element) {
+    return BinarySearch.lowerBound(arr, 0, arr.length, element);
+  }
+
+  /**
+   * Returns the index of the first element of the sorted range
+   * {@code [from, to)} that is not less than the specified element.
+   *
+   * @param arr     the array to search
+   * @param from    the index of the first element of the range
+   * @param to      the index after the last element of the range
+   * @param element the element to search for
+   * @return the index of the first element {@code >= element}, or {@code to}
+   *         if there is none
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static int lowerBound(long[] arr, int from, int to, long element) {
+    BinarySearch.rangeCheck(arr.length, from, to);
+
+    int left = from;
+    int right = to;
+
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+
+      if (arr[middle] < element) {
+        left = middle + 1;
+      } else {
+        right = middle;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * Returns the index of the first element of a sorted array of long values that
+   * is greater than the specified element.
+   *
+   * @param arr     the sorted array to search
+   * @param element the element to search for
+   * @return the index of the first element {@code > element}, or
+   *         {@code arr.length} if there is none
+   */
+  public static int upperBound(long[] arr, long element) {
+    return BinarySearch.upperBound(arr, 0, arr.length, element);
+  }
+
+  /**
+   * Returns the index of the first element of the sorted range
+   * {@code [from, to)} that is greater than the specified element.
+   *
+   * @param arr     the array to search
+   * @param from    the index of the first element of the range
+   * @param to      the index after the last element of the range
+   * @param element the element to search for
+   * @return the index of the first element {@code > element}, or {@code to}
+   *         if there is none
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static int upperBound(long[] arr, int from, int to, long element) {
+    BinarySearch.rangeCheck(arr.length, from, to);
+
+    int left = from;
+    int right = to;
+
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+
+      if (arr[middle] <= element) {
+        left = middle + 1;
+      } else {
+        right = middle;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * Performs a binary search on a sorted array of double values to find the index
+   * of the first occurrence of the specified element, without boxing.
+   *
+   * Values are compared as by {@link Double#compare(double, double)}.
+   *
+   * @param arr     the sorted array to search
+   * @param element the element to search for
+   * @return the index of the first occurrence of the specified element, or -1 if
+   *         the element is not found
+   */
+  public static int binarySearch(double[] arr, double element) {
+    return BinarySearch.binarySearch(arr, 0, arr.length, element);
+  }
+
+  /**
+   * Performs a binary search on the sorted range {@code [from, to)} of an array
+   * of double values to find the index of the first occurrence of the specified
+   * element.
+   *
+   * @param arr     the array to search
+   * @param from    the index of the first element of the range
+   * @param to      the index after the last element of the range
+   * @param element the element to search for
+   * @return the index of the first occurrence of the specified element, or -1 if
+   *         the element is not found
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static int binarySearch(double[] arr, int from, int to, double element) {
+    int index = BinarySearch.lowerBound(arr, from, to, element);
+    return index < to && Double.compare(arr[index], element) == 0 ? index : -1;
+  }
+
+  /**
+   * Returns the index of the first element of a sorted array of double values that
+   * is not less than the specified element.
+   *
+   * @param arr     the sorted array to search
+   * @param element the element to search for
+   * @return the index of the first element {@code >= element}, or
+   *         {@code arr.length} if there is none
+   */
+  public static int lowerBound(double[] arr, double element) {
+    return BinarySearch.lowerBound(arr, 0, arr.length, element);
+  }
+
+  /**
+   * Returns the index of the first element of the sorted range
+   * {@code [from, to)} that is not less than the specified element.
+   *
+   * @param arr     the array to search
+   * @param from    the index of the first element of the range
+   * @param to      the index after the last element of the range
+   * @param element the element to search for
+   * @return the index of the first element {@code >= element}, or {@code to}
+   *         if there is none
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static int lowerBound(double[] arr, int from, int to, double element) {
+    BinarySearch.rangeCheck(arr.length, from, to);
+
+    int left = from;
+    int right = to;
+
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+
+      if (Double.compare(arr[middle], element) < 0) {
+        left = middle + 1;
+      } else {
+        right = middle;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * Returns the index of the first element of a sorted array of double values that
+   * is greater than the specified element.
+   *
+   * @param arr     the sorted array to search
+   * @param element the element to search for
+   * @return the index of the first element {@code > element}, or
+   *         {@code arr.length} if there is none
+   */
+  public static int upperBound(double[] arr, double element) {
+    return BinarySearch.upperBound(arr, 0, arr.length, element);
+  }
+
+  /**
+   * Returns the index of the first element of the sorted range
+   * {@code [from, to)} that is greater than the specified element.
+   *
+   * @param arr     the array to search
+   * @param from    the index of the first element of the range
+   * @param to      the index after the last element of the range
+   * @param element the element to search for
+   * @return the index of the first element {@code > element}, or {@code to}
+   *         if there is none
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static int upperBound(double[] arr, int from, int to, double element) {
+    BinarySearch.rangeCheck(arr.length, from, to);
+
+    int left = from;
+    int right = to;
+
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+
+      if (Double.compare(arr[middle], element) <= 0) {
+        left = middle + 1;
+      } else {
+        right = middle;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * Checks that {@code [from, to)} is a valid range of an array of the given
+   * length.
+   */
+  private static void rangeCheck(int length, int from, int to) {
+    if (from > to) {
+      throw new IllegalArgumentException("from (" + from + ") > to (" + to + ")");
+    }
+
+    if (from < 0 || to > length) {
+      throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + length);
+    }
+  }
 }
@@ -1,4 +1,8 @@
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToLongFunction;
 import java.lang.reflect.Array;
 
 /**
@@ -6,6 +10,434 @@ import java.lang.reflect.Array;
  */
 public class MergeSort {
 
+  /**
+   * Ranges up to this length are sorted with insertion sort instead of being
+   * split further.
+   */
+  private static final int INSERTION_SORT_THRESHOLD = 32;
+
+  /**
+   * Ranges up to this length are sorted sequentially by
+   * {@link #parallelSort(Comparable[])}.
+   */
+  public static final int PARALLEL_THRESHOLD = 1 << 13;
+
+  /**
+   * Galloping starts once one run wins this many comparisons in a row.
+   */
+  private static final int MIN_GALLOP = 7;
+
+  /**
+   * State of an adaptive sort: the stack of pending runs, the merge buffer and
+   * the current galloping threshold. Runs on the stack are merged as soon as
+   * their lengths stop decreasing fast enough, which keeps the stack
+   * logarithmic and the merges balanced.
+   */
+  private static final class RunMerger<T> {
+    private final T[] arr;
+    private final Comparator<? super T> comparator;
+    private final int[] runBase = new int[49];
+    private final int[] runLength = new int[49];
+    private int runs;
+    private int minGallop = MIN_GALLOP;
+    private T[] buffer;
+
+    private RunMerger(T[] arr, Comparator<? super T> comparator) {
+      this.arr = arr;
+      this.comparator = comparator;
+    }
+
+    /**
+     * Pushes the run {@code arr[base, base + length)} and merges runs until the
+     * stack invariants hold again.
+     */
+    private void push(int base, int length) {
+      this.runBase[this.runs] = base;
+      this.runLength[this.runs] = length;
+      this.runs++;
+
+      while (this.runs > 1) {
+        int n = this.runs - 2;
+
+        if (n > 0 && this.runLength[n - 1] <= this.runLength[n] + this.runLength[n + 1]
+            || n > 1 && this.runLength[n - 2] <= this.runLength[n - 1] + this.runLength[n]) {
+          if (this.runLength[n - 1] < this.runLength[n + 1]) {
+            n--;
+          }
+        } else if (this.runLength[n] > this.runLength[n + 1]) {
+          break;
+        }
+
+        this.mergeAt(n);
+      }
+    }
+
+    /**
+     * Merges all pending runs into one.
+     */
+    private void collapse() {
+      while (this.runs > 1) {
+        int n = this.runs - 2;
+
+        if (n > 0 && this.runLength[n - 1] < this.runLength[n + 1]) {
+          n--;
+        }
+
+        this.mergeAt(n);
+      }
+    }
+
+    /**
+     * Merges the runs at positions {@code i} and {@code i + 1} of the stack.
+     * Elements of either run that are already in their final place are
+     * skipped by galloping before the merge starts.
+     */
+    private void mergeAt(int i) {
+      int base1 = this.runBase[i];
+      int length1 = this.runLength[i];
+      int base2 = this.runBase[i + 1];
+      int length2 = this.runLength[i + 1];
+
+      this.runLength[i] = length1 + length2;
+
+      if (i == this.runs - 3) {
+        this.runBase[i + 1] = this.runBase[i + 2];
+        this.runLength[i + 1] = this.runLength[i + 2];
+      }
+
+      this.runs--;
+
+      int skipped = MergeSort.gallopRight(this.arr[base2], this.arr, base1, length1, 0, this.comparator);
+      base1 += skipped;
+      length1 -= skipped;
+
+      if (length1 == 0) {
+        return;
+      }
+
+      length2 = MergeSort.gallopLeft(this.arr[base1 + length1 - 1], this.arr, base2, length2, length2 - 1,
+          this.comparator);
+
+      if (length2 == 0) {
+        return;
+      }
+
+      if (length1 <= length2) {
+        this.mergeLow(base1, length1, base2, length2);
+      } else {
+        this.mergeHigh(base1, length1, base2, length2);
+      }
+    }
+
+    /**
+     * Merges two adjacent runs from left to right, buffering the first one,
+     * which is the shorter of the two.
+     */
+    private void mergeLow(int base1, int length1, int base2, int length2) {
+      T[] arr = this.arr;
+      T[] buffer = this.buffer(length1);
+      System.arraycopy(arr, base1, buffer, 0, length1);
+
+      int cursor1 = 0;
+      int cursor2 = base2;
+      int dest = base1;
+      int minGallop = this.minGallop;
+
+      outer: while (true) {
+        int count1 = 0;
+        int count2 = 0;
+
+        // Take one element at a time until a run keeps winning
+        do {
+          if (this.comparator.compare(arr[cursor2], buffer[cursor1]) < 0) {
+            arr[dest++] = arr[cursor2++];
+            count2++;
+            count1 = 0;
+
+            if (--length2 == 0) {
+              break outer;
+            }
+          } else {
+            arr[dest++] = buffer[cursor1++];
+            count1++;
+            count2 = 0;
+
+            if (--length1 == 0) {
+              break outer;
+            }
+          }
+        } while ((count1 | count2) < minGallop);
+
+        // Copy whole stretches while galloping keeps paying off
+        do {
+          count1 = MergeSort.gallopRight(arr[cursor2], buffer, cursor1, length1, 0, this.comparator);
+
+          if (count1 != 0) {
+            System.arraycopy(buffer, cursor1, arr, dest, count1);
+            dest += count1;
+            cursor1 += count1;
+            length1 -= count1;
+
+            if (length1 == 0) {
+              break outer;
+            }
+          }
+
+          arr[dest++] = arr[cursor2++];
+
+          if (--length2 == 0) {
+            break outer;
+          }
+
+          count2 = MergeSort.gallopLeft(buffer[cursor1], arr, cursor2, length2, 0, this.comparator);
+
+          if (count2 != 0) {
+            System.arraycopy(arr, cursor2, arr, dest, count2);
+            dest += count2;
+            cursor2 += count2;
+            length2 -= count2;
+
+            if (length2 == 0) {
+              break outer;
+            }
+          }
+
+          arr[dest++] = buffer[cursor1++];
+
+          if (--length1 == 0) {
+            break outer;
+          }
+
+          minGallop--;
+        } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+
+        minGallop = Math.max(minGallop, 0) + 2;
+      }
+
+      this.minGallop = Math.max(minGallop, 1);
+
+      // What is left of the second run is already in place
+      if (length1 > 0) {
+        System.arraycopy(buffer, cursor1, arr, dest, length1);
+      }
+    }
+
+    /**
+     * Merges two adjacent runs from right to left, buffering the second one,
+     * which is the shorter of the two.
+     */
+    private void mergeHigh(int base1, int length1, int base2, int length2) {
+      T[] arr = this.arr;
+      T[] buffer = this.buffer(length2);
+      System.arraycopy(arr, base2, buffer, 0, length2);
+
+      int cursor1 = base1 + length1 - 1;
+      int cursor2 = length2 - 1;
+      int dest = base2 + length2 - 1;
+      int minGallop = this.minGallop;
+
+      outer: while (true) {
+        int count1 = 0;
+        int count2 = 0;
+
+        // Take one element at a time until a run keeps winning
+        do {
+          if (this.comparator.compare(buffer[cursor2], arr[cursor1]) < 0) {
+            arr[dest--] = arr[cursor1--];
+            count1++;
+            count2 = 0;
+
+            if (--length1 == 0) {
+              break outer;
+            }
+          } else {
+            arr[dest--] = buffer[cursor2--];
+            count2++;
+            count1 = 0;
+
+            if (--length2 == 0) {
+              break outer;
+            }
+          }
+        } while ((count1 | count2) < minGallop);
+
+        // Copy whole stretches while galloping keeps paying off
+        do {
+          count1 = length1
+              - MergeSort.gallopRight(buffer[cursor2], arr, base1, length1, length1 - 1, this.comparator);
+
+          if (count1 != 0) {
+            dest -= count1;
+            cursor1 -= count1;
+            length1 -= count1;
+            System.arraycopy(arr, cursor1 + 1, arr, dest + 1, count1);
+
+            if (length1 == 0) {
+              break outer;
+            }
+          }
+
+          arr[dest--] = buffer[cursor2--];
+
+          if (--length2 == 0) {
+            break outer;
+          }
+
+          count2 = length2 - MergeSort.gallopLeft(arr[cursor1], buffer, 0, length2, length2 - 1, this.comparator);
+
+          if (count2 != 0) {
+            dest -= count2;
+            cursor2 -= count2;
+            length2 -= count2;
+            System.arraycopy(buffer, cursor2 + 1, arr, dest + 1, count2);
+
+            if (length2 == 0) {
+              break outer;
+            }
+          }
+
+          arr[dest--] = arr[cursor1--];
+
+          if (--length1 == 0) {
+            break outer;
+          }
+
+          minGallop--;
+        } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+
+        minGallop = Math.max(minGallop, 0) + 2;
+      }
+
+      this.minGallop = Math.max(minGallop, 1);
+
+      // What is left of the first run is already in place
+      if (length2 > 0) {
+        System.arraycopy(buffer, 0, arr, dest - length2 + 1, length2);
+      }
+    }
+
+    /**
+     * Returns a merge buffer with room for at least {@code length} elements.
+     */
+    private T[] buffer(int length) {
+      if (this.buffer == null || this.buffer.length < length) {
+        int capacity = Math.max(length, Math.min(length * 2, this.arr.length >>> 1));
+        this.buffer = MergeSort.scratch(this.arr, capacity, null);
+      }
+
+      return this.buffer;
+    }
+  }
+
+  /**
+   * Fork-join task that sorts {@code target[from, to)}. On entry both arrays
+   * hold the same elements in that range; {@code source} is used as scratch
+   * space and its range is left in an unspecified order.
+   */
+  private static final class SortTask<T> extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final T[] source;
+    private final T[] target;
+    private final int from;
+    private final int to;
+    private final int threshold;
+    private final Comparator<? super T> comparator;
+
+    private SortTask(T[] source, T[] target, int from, int to, int threshold, Comparator<? super T> comparator) {
+      this.source = source;
+      this.target = target;
+      this.from = from;
+      this.to = to;
+      this.threshold = threshold;
+      this.comparator = comparator;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= this.threshold) {
+        MergeSort.sortRange(this.target, this.from, this.to, this.source, this.from, this.comparator);
+        return;
+      }
+
+      int middle = (this.from + this.to) >>> 1;
+
+      // Sort both halves into the source array, then merge them back
+      invokeAll(
+          new SortTask<>(this.target, this.source, this.from, middle, this.threshold, this.comparator),
+          new SortTask<>(this.target, this.source, middle, this.to, this.threshold, this.comparator));
+
+      new MergeTask<>(this.source, this.from, middle, middle, this.to, this.target, this.from, this.threshold,
+          this.comparator).compute();
+    }
+  }
+
+  /**
+   * Fork-join task that merges the sorted runs {@code source[low1, high1)} and
+   * {@code source[low2, high2)} into {@code target} starting at
+   * {@code targetLow}. Large merges are split around the middle element of the
+   * longer run so both halves can be merged concurrently.
+   */
+  private static final class MergeTask<T> extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final T[] source;
+    private final int low1;
+    private final int high1;
+    private final int low2;
+    private final int high2;
+    private final T[] target;
+    private final int targetLow;
+    private final int threshold;
+    private final Comparator<? super T> comparator;
+
+    private MergeTask(T[] source, int low1, int high1, int low2, int high2, T[] target, int targetLow,
+        int threshold, Comparator<? super T> comparator) {
+      this.source = source;
+      this.low1 = low1;
+      this.high1 = high1;
+      this.low2 = low2;
+      this.high2 = high2;
+      this.target = target;
+      this.targetLow = targetLow;
+      this.threshold = threshold;
+      this.comparator = comparator;
+    }
+
+    @Override
+    protected void compute() {
+      int length1 = this.high1 - this.low1;
+      int length2 = this.high2 - this.low2;
+
+      // Two single elements cannot be split any further
+      if (length1 + length2 <= Math.max(this.threshold, 2) || length1 == 0 || length2 == 0) {
+        MergeSort.mergeRuns(this.source, this.low1, this.high1, this.low2, this.high2, this.target, this.targetLow,
+            this.comparator);
+        return;
+      }
+
+      int split1, split2;
+
+      if (length1 >= length2) {
+        // Elements of the second run equal to the pivot must stay after it
+        split1 = (this.low1 + this.high1) >>> 1;
+        split2 = MergeSort.bound(this.source, this.low2, this.high2, this.source[split1], false, this.comparator);
+      } else {
+        // Elements of the first run equal to the pivot must stay before it
+        split2 = (this.low2 + this.high2) >>> 1;
+        split1 = MergeSort.bound(this.source, this.low1, this.high1, this.source[split2], true, this.comparator);
+      }
+
+      int targetSplit = this.targetLow + (split1 - this.low1) + (split2 - this.low2);
+
+      invokeAll(
+          new MergeTask<>(this.source, this.low1, split1, this.low2, split2, this.target, this.targetLow,
+              this.threshold, this.comparator),
+          new MergeTask<>(this.source, split1, this.high1, split2, this.high2, this.target, targetSplit,
+              this.threshold, this.comparator));
+    }
+  }
+
   /**
    * Sorts the given array using the merge sort algorithm.
    *
@@ -17,15 +449,31 @@ public class MergeSort {
     if (arr.length <= 1) {
       return arr;
     }
-    int middle = arr.length / 2;
 
-    T[] left = Arrays.copyOfRange(arr, 0, middle);
-    T[] right = Arrays.copyOfRange(arr, middle, arr.length);
+    T[] sorted = arr.clone();
+    MergeSort.sort(sorted);
 
-    T[] mergedLeft = MergeSort.mergeSort(left);
-    T[] mergedRight = MergeSort.mergeSort(right);
+    return sorted;
+  }
 
-    return MergeSort.merge(mergedLeft, mergedRight);
+  /**
+   * Sorts the given array using the merge sort algorithm, ordering the elements
+   * with the given comparator.
+   *
+   * @param <T>        the type of elements in the array
+   * @param arr        the array to be sorted
+   * @param comparator the comparator that defines the order
+   * @return a new array containing the sorted elements
+   */
+  public static <T> T[] mergeSort(T[] arr, Comparator<? super T> comparator) {
+    if (arr.length <= 1) {
+      return arr;
+    }
+
+    T[] sorted = arr.clone();
+    MergeSort.sort(sorted, comparator);
+
+    return sorted;
   }
 
   /**
@@ -37,6 +485,20 @@ public class MergeSort {
    * @return a new array containing all elements from arr1 and arr2, sorted
    */
   public static <T extends Comparable<T>> T[] merge(T[] arr1, T[] arr2) {
+    return MergeSort.merge(arr1, arr2, Comparator.<T>naturalOrder());
+  }
+
+  /**
+   * Merges two arrays sorted by the given comparator into a single sorted
+   * array. Ties are taken from the first array.
+   *
+   * @param <T>        the type of elements in the arrays
+   * @param arr1       the first sorted array
+   * @param arr2       the second sorted array
+   * @param comparator the comparator that defines the order
+   * @return a new array containing all elements from arr1 and arr2, sorted
+   */
+  public static <T> T[] merge(T[] arr1, T[] arr2, Comparator<? super T> comparator) {
     if (arr1.length == 0) {
       return arr2;
     }
@@ -51,7 +513,7 @@ public class MergeSort {
     T[] mergedArr = (T[]) Array.newInstance(arr1.getClass().getComponentType(), arr1.length + arr2.length);
 
     while (pointer1 < arr1.length && pointer2 < arr2.length) {
-      mergedArr[pointer3++] = (arr1[pointer1].compareTo(arr2[pointer2]) <= 0) ? arr1[pointer1++]
+      mergedArr[pointer3++] = (comparator.compare(arr1[pointer1], arr2[pointer2]) <= 0) ? arr1[pointer1++]
           : arr2[pointer2++];
     }
 
@@ -65,4 +527,959 @@ public class MergeSort {
 
     return mergedArr;
   }
+
+  /**
+   * Sorts the given array in place. The sort is stable and allocates a single
+   * scratch buffer as long as the array.
+   *
+   * @param <T> the type of elements in the array, which must be comparable
+   * @param arr the array to be sorted
+   */
+  public static <T extends Comparable<T>> void sort(T[] arr) {
+    MergeSort.sort(arr, 0, arr.length, null);
+  }
+
+  /**
+   * Sorts the given array in place using the given scratch buffer, so repeated
+   * sorts do not allocate. The buffer is left holding stale references to the
+   * sorted elements.
+   *
+   * @param <T>     the type of elements in the array, which must be comparable
+   * @param arr     the array to be sorted
+   * @param scratch a buffer at least as long as the array, or null to allocate
+   *                one
+   * @throws IllegalArgumentException if the buffer is shorter than the array
+   */
+  public static <T extends Comparable<T>> void sort(T[] arr, T[] scratch) {
+    MergeSort.sort(arr, 0, arr.length, scratch);
+  }
+
+  /**
+   * Sorts the elements of the given array between {@code from} (inclusive) and
+   * {@code to} (exclusive) in place using the given scratch buffer.
+   *
+   * @param <T>     the type of elements in the array, which must be comparable
+   * @param arr     the array containing the elements to be sorted
+   * @param from    the index of the first element to be sorted
+   * @param to      the index after the last element to be sorted
+   * @param scratch a buffer with room for {@code to - from} elements, or null
+   *                to allocate one
+   * @throws IllegalArgumentException  if {@code from > to} or the buffer is too
+   *                                   short
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static <T extends Comparable<T>> void sort(T[] arr, int from, int to, T[] scratch) {
+    MergeSort.rangeCheck(arr.length, from, to);
+    MergeSort.sort(arr, from, to, scratch, Comparator.<T>naturalOrder());
+  }
+
+  /**
+   * Sorts the given array in place, ordering the elements with the given
+   * comparator. The sort is stable.
+   *
+   * @param <T>        the type of elements in the array
+   * @param arr        the array to be sorted
+   * @param comparator the comparator that defines the order
+   */
+  public static <T> void sort(T[] arr, Comparator<? super T> comparator) {
+    MergeSort.sort(arr, 0, arr.length, null, comparator);
+  }
+
+  /**
+   * Sorts the given array in place with the given comparator and scratch
+   * buffer.
+   *
+   * @param <T>        the type of elements in the array
+   * @param arr        the array to be sorted
+   * @param scratch    a buffer at least as long as the array, or null to
+   *                   allocate one
+   * @param comparator the comparator that defines the order
+   * @throws IllegalArgumentException if the buffer is shorter than the array
+   */
+  public static <T> void sort(T[] arr, T[] scratch, Comparator<? super T> comparator) {
+    MergeSort.sort(arr, 0, arr.length, scratch, comparator);
+  }
+
+  /**
+   * Sorts the elements of the given array between {@code from} (inclusive) and
+   * {@code to} (exclusive) in place with the given comparator and scratch
+   * buffer.
+   *
+   * @param <T>        the type of elements in the array
+   * @param arr        the array containing the elements to be sorted
+   * @param from       the index of the first element to be sorted
+   * @param to         the index after the last element to be sorted
+   * @param scratch    a buffer with room for {@code to - from} elements, or
+   *                   null to allocate one
+   * @param comparator the comparator that defines the order
+   * @throws IllegalArgumentException  if {@code from > to} or the buffer is too
+   *                                   short
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static <T> void sort(T[] arr, int from, int to, T[] scratch, Comparator<? super T> comparator) {
+    MergeSort.rangeCheck(arr.length, from, to);
+    MergeSort.sortRange(arr, from, to, MergeSort.scratch(arr, to - from, scratch), 0, comparator);
+  }
+
+  /**
+   * Sorts the given array in place by the {@code long} key extracted from each
+   * element. Keys are compared as primitives, so no wrapper objects are
+   * created. The sort is stable.
+   *
+   * @param <T>          the type of elements in the array
+   * @param arr          the array to be sorted
+   * @param keyExtractor the function extracting the sort key
+   */
+  public static <T> void sortByKey(T[] arr, ToLongFunction<? super T> keyExtractor) {
+    MergeSort.sort(arr, 0, arr.length, null, Comparator.comparingLong(keyExtractor));
+  }
+
+  /**
+   * Sorts the given array in place using all the threads of the common
+   * fork-join pool. Ranges of up to {@link #PARALLEL_THRESHOLD} elements are
+   * sorted sequentially.
+   *
+   * @param <T> the type of elements in the array, which must be comparable
+   * @param arr the array to be sorted
+   */
+  public static <T extends Comparable<T>> void parallelSort(T[] arr) {
+    MergeSort.parallelSort(arr, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Sorts the given array in place on the given fork-join pool. Halves are
+   * sorted concurrently and merged in parallel until ranges shrink to
+   * {@code threshold} elements, which are handled sequentially. The sort is
+   * stable.
+   *
+   * @param <T>       the type of elements in the array, which must be
+   *                  comparable
+   * @param arr       the array to be sorted
+   * @param pool      the pool running the sort
+   * @param threshold the length up to which ranges are sorted and merged
+   *                  sequentially
+   * @throws IllegalArgumentException if the pool is null or the threshold is not
+   *                                  positive
+   */
+  public static <T extends Comparable<T>> void parallelSort(T[] arr, ForkJoinPool pool, int threshold) {
+    MergeSort.parallelSort(arr, pool, threshold, Comparator.<T>naturalOrder());
+  }
+
+  /**
+   * Sorts the given array in place on the common fork-join pool, ordering the
+   * elements with the given comparator.
+   *
+   * @param <T>        the type of elements in the array
+   * @param arr        the array to be sorted
+   * @param comparator the comparator that defines the order
+   */
+  public static <T> void parallelSort(T[] arr, Comparator<? super T> comparator) {
+    MergeSort.parallelSort(arr, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD, comparator);
+  }
+
+  /**
+   * Sorts the given array in place on the given fork-join pool, ordering the
+   * elements with the given comparator. Small arrays and single-threaded pools
+   * fall back to the sequential sort.
+   *
+   * @param <T>        the type of elements in the array
+   * @param arr        the array to be sorted
+   * @param pool       the pool running the sort
+   * @param threshold  the length up to which ranges are sorted and merged
+   *                   sequentially
+   * @param comparator the comparator that defines the order
+   * @throws IllegalArgumentException if the pool is null or the threshold is not
+   *                                  positive
+   */
+  public static <T> void parallelSort(T[] arr, ForkJoinPool pool, int threshold,
+      Comparator<? super T> comparator) {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null");
+    }
+
+    if (threshold < 1) {
+      throw new IllegalArgumentException("Threshold must be positive");
+    }
+
+    if (arr.length <= threshold || pool.getParallelism() == 1) {
+      MergeSort.sortRange(arr, 0, arr.length, MergeSort.scratch(arr, arr.length, null), 0, comparator);
+      return;
+    }
+
+    pool.invoke(new SortTask<>(arr.clone(), arr, 0, arr.length, threshold, comparator));
+  }
+
+  /**
+   * Sorts the given array in place, taking advantage of runs that are already
+   * in order. Ascending and strictly descending runs are detected and kept,
+   * short runs are extended with binary insertion sort, and runs are merged
+   * with galloping, so presorted input is sorted in close to linear time. The
+   * sort is stable.
+   *
+   * @param <T> the type of elements in the array, which must be comparable
+   * @param arr the array to be sorted
+   */
+  public static <T extends Comparable<T>> void adaptiveSort(T[] arr) {
+    MergeSort.adaptiveSort(arr, 0, arr.length, Comparator.<T>naturalOrder());
+  }
+
+  /**
+   * Sorts the given array in place with the adaptive sort, ordering the
+   * elements with the given comparator.
+   *
+   * @param <T>        the type of elements in the array
+   * @param arr        the array to be sorted
+   * @param comparator the comparator that defines the order
+   */
+  public static <T> void adaptiveSort(T[] arr, Comparator<? super T> comparator) {
+    MergeSort.adaptiveSort(arr, 0, arr.length, comparator);
+  }
+
+  /**
+   * Sorts the elements of the given array between {@code from} (inclusive) and
+   * {@code to} (exclusive) in place with the adaptive sort.
+   *
+   * @param <T>        the type of elements in the array
+   * @param arr        the array containing the elements to be sorted
+   * @param from       the index of the first element to be sorted
+   * @param to         the index after the last element to be sorted
+   * @param comparator the comparator that defines the order
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static <T> void adaptiveSort(T[] arr, int from, int to, Comparator<? super T> comparator) {
+    MergeSort.rangeCheck(arr.length, from, to);
+
+    int remaining = to - from;
+
+    if (remaining < 2) {
+      return;
+    }
+
+    if (remaining < INSERTION_SORT_THRESHOLD) {
+      int run = MergeSort.ascendingRun(arr, from, to, comparator);
+      MergeSort.binaryInsertionSort(arr, from, to, from + run, comparator);
+      return;
+    }
+
+    RunMerger<T> merger = new RunMerger<>(arr, comparator);
+    int minRun = MergeSort.minRunLength(remaining);
+    int low = from;
+
+    do {
+      int run = MergeSort.ascendingRun(arr, low, to, comparator);
+
+      if (run < minRun) {
+        int forced = Math.min(remaining, minRun);
+        MergeSort.binaryInsertionSort(arr, low, low + forced, low + run, comparator);
+        run = forced;
+      }
+
+      merger.push(low, run);
+      low += run;
+      remaining -= run;
+    } while (remaining != 0);
+
+    merger.collapse();
+  }
+
+  /**
+   * Sorts the given array of int values using the merge sort algorithm without
+   * boxing them.
+   *
+   * @param arr the array to be sorted
+   * @return a new array containing the sorted elements
+   */
+  public static int[] mergeSort(int[] arr) {
+    return MergeSort.mergeSort(arr, 0, arr.length);
+  }
+
+  /**
+   * Sorts the elements of the given array of int values between {@code from}
+   * (inclusive) and {@code to} (exclusive) without boxing them.
+   *
+   * @param arr  the array containing the elements to be sorted
+   * @param from the index of the first element to be sorted
+   * @param to   the index after the last element to be sorted
+   * @return a new array containing the sorted elements of the range
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static int[] mergeSort(int[] arr, int from, int to) {
+    MergeSort.rangeCheck(arr.length, from, to);
+
+    int[] sorted = Arrays.copyOfRange(arr, from, to);
+    MergeSort.sortRange(sorted, 0, sorted.length, new int[sorted.length / 2]);
+
+    return sorted;
+  }
+
+  /**
+   * Sorts the given array of int values in place.
+   *
+   * @param arr the array to be sorted
+   */
+  public static void sort(int[] arr) {
+    MergeSort.sort(arr, 0, arr.length, null);
+  }
+
+  /**
+   * Sorts the elements of the given array of int values between {@code from}
+   * (inclusive) and {@code to} (exclusive) in place using the given scratch
+   * buffer, so repeated sorts do not allocate.
+   *
+   * @param arr     the array containing the elements to be sorted
+   * @param from    the index of the first element to be sorted
+   * @param to      the index after the last element to be sorted
+   * @param scratch a buffer with room for {@code (to - from) / 2} values, or
+   *                null to allocate one
+   * @throws IllegalArgumentException  if {@code from > to} or the buffer is too
+   *                                   short
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static void sort(int[] arr, int from, int to, int[] scratch) {
+    MergeSort.rangeCheck(arr.length, from, to);
+
+    int needed = (to - from) / 2;
+
+    if (scratch == null) {
+      scratch = new int[needed];
+    } else if (scratch.length < needed) {
+      throw new IllegalArgumentException("Scratch buffer needs at least " + needed + " elements");
+    }
+
+    MergeSort.sortRange(arr, from, to, scratch);
+  }
+
+  /**
+   * Sorts the given array of long values using the merge sort algorithm without
+   * boxing them.
+   *
+   * @param arr the array to be sorted
+   * @return a new array containing the sorted elements
+   */
+  public static long[] mergeSort(long[] arr) {
+    return MergeSort.mergeSort(arr, 0, arr.length);
+  }
+
+  /**
+   * Sorts the elements of the given array of long values between {@code from}
+   * (inclusive) and {@code to} (exclusive) without boxing them.
+   *
+   * @param arr  the array containing the elements to be sorted
+   * @param from the index of the first element to be sorted
+   * @param to   the index after the last element to be sorted
+   * @return a new array containing the sorted elements of the range
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static long[] mergeSort(long[] arr, int from, int to) {
+    MergeSort.rangeCheck(arr.length, from, to);
+
+    long[] sorted = Arrays.copyOfRange(arr, from, to);
+    MergeSort.sortRange(sorted, 0, sorted.length, new long[sorted.length / 2]);
+
+    return sorted;
+  }
+
+  /**
+   * Sorts the given array of long values in place.
+   *
+   * @param arr the array to be sorted
+   */
+  public static void sort(long[] arr) {
+    MergeSort.sort(arr, 0, arr.length, null);
+  }
+
+  /**
+   * Sorts the elements of the given array of long values between {@code from}
+   * (inclusive) and {@code to} (exclusive) in place using the given scratch
+   * buffer, so repeated sorts do not allocate.
+   *
+   * @param arr     the array containing the elements to be sorted
+   * @param from    the index of the first element to be sorted
+   * @param to      the index after the last element to be sorted
+   * @param scratch a buffer with room for {@code (to - from) / 2} values, or
+   *                null to allocate one
+   * @throws IllegalArgumentException  if {@code from > to} or the buffer is too
+   *                                   short
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static void sort(long[] arr, int from, int to, long[] scratch) {
+    MergeSort.rangeCheck(arr.length, from, to);
+
+    int needed = (to - from) / 2;
+
+    if (scratch == null) {
+      scratch = new long[needed];
+    } else if (scratch.length < needed) {
+      throw new IllegalArgumentException("Scratch buffer needs at least " + needed + " elements");
+    }
+
+    MergeSort.sortRange(arr, from, to, scratch);
+  }
+
+  /**
+   * Sorts the given array of double values using the merge sort algorithm without
+   * boxing them.
+   *
+   * Values are ordered as by {@link Double#compare(double, double)}, so
+   * {@code -0.0} comes before {@code 0.0} and {@code NaN} comes last.
+   *
+   * @param arr the array to be sorted
+   * @return a new array containing the sorted elements
+   */
+  public static double[] mergeSort(double[] arr) {
+    return MergeSort.mergeSort(arr, 0, arr.length);
+  }
+
+  /**
+   * Sorts the elements of the given array of double values between {@code from}
+   * (inclusive) and {@code to} (exclusive) without boxing them.
+   *
+   * @param arr  the array containing the elements to be sorted
+   * @param from the index of the first element to be sorted
+   * @param to   the index after the last element to be sorted
+   * @return a new array containing the sorted elements of the range
+   * @throws IllegalArgumentException  if {@code from > to}
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static double[] mergeSort(double[] arr, int from, int to) {
+    MergeSort.rangeCheck(arr.length, from, to);
+
+    double[] sorted = Arrays.copyOfRange(arr, from, to);
+    MergeSort.sortRange(sorted, 0, sorted.length, new double[sorted.length / 2]);
+
+    return sorted;
+  }
+
+  /**
+   * Sorts the given array of double values in place.
+   *
+   * @param arr the array to be sorted
+   */
+  public static void sort(double[] arr) {
+    MergeSort.sort(arr, 0, arr.length, null);
+  }
+
+  /**
+   * Sorts the elements of the given array of double values between {@code from}
+   * (inclusive) and {@code to} (exclusive) in place using the given scratch
+   * buffer, so repeated sorts do not allocate.
+   *
+   * @param arr     the array containing the elements to be sorted
+   * @param from    the index of the first element to be sorted
+   * @param to      the index after the last element to be sorted
+   * @param scratch a buffer with room for {@code (to - from) / 2} values, or
+   *                null to allocate one
+   * @throws IllegalArgumentException  if {@code from > to} or the buffer is too
+   *                                   short
+   * @throws IndexOutOfBoundsException if the range is outside the array
+   */
+  public static void sort(double[] arr, int from, int to, double[] scratch) {
+    MergeSort.rangeCheck(arr.length, from, to);
+
+    int needed = (to - from) / 2;
+
+    if (scratch == null) {
+      scratch = new double[needed];
+    } else if (scratch.length < needed) {
+      throw new IllegalArgumentException("Scratch buffer needs at least " + needed + " elements");
+    }
+
+    MergeSort.sortRange(arr, from, to, scratch);
+  }
+
+  /**
+   * Sorts {@code arr[from, to)} in place bottom-up: runs of
+   * {@link #INSERTION_SORT_THRESHOLD} elements are insertion sorted and then
+   * merged in passes of doubling width, alternating between the array and
+   * {@code scratch[scratchOffset, scratchOffset + to - from)}.
+   */
+  private static <T> void sortRange(T[] arr, int from, int to, T[] scratch, int scratchOffset,
+      Comparator<? super T> comparator) {
+    int length = to - from;
+
+    for (int low = from; low < to; low += INSERTION_SORT_THRESHOLD) {
+      MergeSort.insertionSort(arr, low, Math.min(low + INSERTION_SORT_THRESHOLD, to), comparator);
+    }
+
+    T[] source = arr;
+    T[] target = scratch;
+    int sourceOffset = from;
+    int targetOffset = scratchOffset;
+
+    for (int width = INSERTION_SORT_THRESHOLD; width < length; width <<= 1) {
+      for (long low = 0; low < length; low += 2L * width) {
+        int middle = (int) Math.min(low + width, length);
+        int high = (int) Math.min(low + 2L * width, length);
+
+        MergeSort.mergeRuns(source, sourceOffset + (int) low, sourceOffset + middle, sourceOffset + high,
+            target, targetOffset + (int) low, comparator);
+      }
+
+      T[] tmpArray = source;
+      source = target;
+      target = tmpArray;
+
+      int tmpOffset = sourceOffset;
+      sourceOffset = targetOffset;
+      targetOffset = tmpOffset;
+    }
+
+    if (source != arr) {
+      System.arraycopy(source, sourceOffset, arr, from, length);
+    }
+  }
+
+  /**
+   * Merges the sorted runs {@code source[low, middle)} and
+   * {@code source[middle, high)} into {@code target} starting at
+   * {@code targetLow}. Ties are taken from the left run to keep the merge
+   * stable.
+   */
+  private static <T> void mergeRuns(T[] source, int low, int middle, int high, T[] target, int targetLow,
+      Comparator<? super T> comparator) {
+    // The right run is empty or both runs are already in order
+    if (middle == high || comparator.compare(source[middle - 1], source[middle]) <= 0) {
+      System.arraycopy(source, low, target, targetLow, high - low);
+      return;
+    }
+
+    MergeSort.mergeRuns(source, low, middle, middle, high, target, targetLow, comparator);
+  }
+
+  /**
+   * Merges the sorted runs {@code source[low1, high1)} and
+   * {@code source[low2, high2)} into {@code target} starting at
+   * {@code targetLow}. Ties are taken from the first run.
+   */
+  private static <T> void mergeRuns(T[] source, int low1, int high1, int low2, int high2, T[] target,
+      int targetLow, Comparator<? super T> comparator) {
+    int pointer1 = low1, pointer2 = low2, pointer3 = targetLow;
+
+    while (pointer1 < high1 && pointer2 < high2) {
+      target[pointer3++] = (comparator.compare(source[pointer1], source[pointer2]) <= 0) ? source[pointer1++]
+          : source[pointer2++];
+    }
+
+    if (pointer1 < high1) {
+      System.arraycopy(source, pointer1, target, pointer3, high1 - pointer1);
+    } else {
+      System.arraycopy(source, pointer2, target, pointer3, high2 - pointer2);
+    }
+  }
+
+  /**
+   * Sorts {@code arr[from, to)} in place with a stable insertion sort.
+   */
+  private static <T> void insertionSort(T[] arr, int from, int to, Comparator<? super T> comparator) {
+    for (int i = from + 1; i < to; i++) {
+      T current = arr[i];
+      int j = i - 1;
+
+      while (j >= from && comparator.compare(current, arr[j]) < 0) {
+        arr[j + 1] = arr[j];
+        j--;
+      }
+
+      arr[j + 1] = current;
+    }
+  }
+
+  /**
+   * Returns the index of the first element of {@code arr[from, to)} that is
+   * greater than the key ({@code upper}) or not less than it
+   * ({@code !upper}).
+   */
+  private static <T> int bound(T[] arr, int from, int to, T key, boolean upper, Comparator<? super T> comparator) {
+    int left = from;
+    int right = to;
+
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+      int comparison = comparator.compare(arr[middle], key);
+
+      if (comparison < 0 || upper && comparison == 0) {
+        left = middle + 1;
+      } else {
+        right = middle;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * Returns the length of the run starting at {@code from}, reversing it first
+   * if it is strictly descending. Equal elements never form a descending run,
+   * so reversing keeps the sort stable.
+   */
+  private static <T> int ascendingRun(T[] arr, int from, int to, Comparator<? super T> comparator) {
+    int end = from + 1;
+
+    if (end == to) {
+      return 1;
+    }
+
+    if (comparator.compare(arr[end++], arr[from]) < 0) {
+      while (end < to && comparator.compare(arr[end], arr[end - 1]) < 0) {
+        end++;
+      }
+
+      for (int i = from, j = end - 1; i < j; i++, j--) {
+        T tmp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = tmp;
+      }
+    } else {
+      while (end < to && comparator.compare(arr[end], arr[end - 1]) >= 0) {
+        end++;
+      }
+    }
+
+    return end - from;
+  }
+
+  /**
+   * Sorts {@code arr[from, to)} knowing that {@code arr[from, start)} is
+   * already sorted, placing each remaining element after the equal ones
+   * found by binary search.
+   */
+  private static <T> void binaryInsertionSort(T[] arr, int from, int to, int start,
+      Comparator<? super T> comparator) {
+    for (int i = Math.max(start, from + 1); i < to; i++) {
+      T pivot = arr[i];
+      int left = from;
+      int right = i;
+
+      while (left < right) {
+        int middle = (left + right) >>> 1;
+
+        if (comparator.compare(pivot, arr[middle]) < 0) {
+          right = middle;
+        } else {
+          left = middle + 1;
+        }
+      }
+
+      System.arraycopy(arr, left, arr, left + 1, i - left);
+      arr[left] = pivot;
+    }
+  }
+
+  /**
+   * Returns the minimum run length for an array of the given length, chosen so
+   * that the number of runs is a power of two or slightly less.
+   */
+  private static int minRunLength(int length) {
+    int lowBits = 0;
+
+    while (length >= INSERTION_SORT_THRESHOLD) {
+      lowBits |= length & 1;
+      length >>= 1;
+    }
+
+    return length + lowBits;
+  }
+
+  /**
+   * Returns the position in the sorted {@code arr[base, base + length)} where
+   * the key would be inserted before any equal elements, searching
+   * exponentially outwards from {@code base + hint}.
+   */
+  private static <T> int gallopLeft(T key, T[] arr, int base, int length, int hint,
+      Comparator<? super T> comparator) {
+    int lastOffset = 0;
+    int offset = 1;
+
+    if (comparator.compare(key, arr[base + hint]) > 0) {
+      int maxOffset = length - hint;
+
+      while (offset < maxOffset && comparator.compare(key, arr[base + hint + offset]) > 0) {
+        lastOffset = offset;
+        offset = (offset << 1) + 1;
+
+        if (offset <= 0) {
+          offset = maxOffset;
+        }
+      }
+
+      offset = Math.min(offset, maxOffset);
+      lastOffset += hint;
+      offset += hint;
+    } else {
+      int maxOffset = hint + 1;
+
+      while (offset < maxOffset && comparator.compare(key, arr[base + hint - offset]) <= 0) {
+        lastOffset = offset;
+        offset = (offset << 1) + 1;
+
+        if (offset <= 0) {
+          offset = maxOffset;
+        }
+      }
+
+      offset = Math.min(offset, maxOffset);
+      int tmp = lastOffset;
+      lastOffset = hint - offset;
+      offset = hint - tmp;
+    }
+
+    // The position is now in (lastOffset, offset]
+    lastOffset++;
+
+    while (lastOffset < offset) {
+      int middle = lastOffset + ((offset - lastOffset) >>> 1);
+
+      if (comparator.compare(key, arr[base + middle]) > 0) {
+        lastOffset = middle + 1;
+      } else {
+        offset = middle;
+      }
+    }
+
+    return offset;
+  }
+
+  /**
+   * Returns the position in the sorted {@code arr[base, base + length)} where
+   * the key would be inserted after any equal elements, searching
+   * exponentially outwards from {@code base + hint}.
+   */
+  private static <T> int gallopRight(T key, T[] arr, int base, int length, int hint,
+      Comparator<? super T> comparator) {
+    int lastOffset = 0;
+    int offset = 1;
+
+    if (comparator.compare(key, arr[base + hint]) < 0) {
+      int maxOffset = hint + 1;
+
+      while (offset < maxOffset && comparator.compare(key, arr[base + hint - offset]) < 0) {
+        lastOffset = offset;
+        offset = (offset << 1) + 1;
+
+        if (offset <= 0) {
+          offset = maxOffset;
+        }
+      }
+
+      offset = Math.min(offset, maxOffset);
+      int tmp = lastOffset;
+      lastOffset = hint - offset;
+      offset = hint - tmp;
+    } else {
+      int maxOffset = length - hint;
+
+      while (offset < maxOffset && comparator.compare(key, arr[base + hint + offset]) >= 0) {
+        lastOffset = offset;
+        offset = (offset << 1) + 1;
+
+        if (offset <= 0) {
+          offset = maxOffset;
+        }
+      }
+
+      offset = Math.min(offset, maxOffset);
+      lastOffset += hint;
+      offset += hint;
+    }
+
+    // The position is now in (lastOffset, offset]
+    lastOffset++;
+
+    while (lastOffset < offset) {
+      int middle = lastOffset + ((offset - lastOffset) >>> 1);
+
+      if (comparator.compare(key, arr[base + middle]) < 0) {
+        offset = middle;
+      } else {
+        lastOffset = middle + 1;
+      }
+    }
+
+    return offset;
+  }
+
+  /**
+   * Returns the given scratch buffer after checking that it can hold
+   * {@code length} elements, or allocates one of the array's component type if
+   * none was given.
+   */
+  private static <T> T[] scratch(T[] arr, int length, T[] scratch) {
+    if (scratch == null) {
+      @SuppressWarnings("unchecked")
+      T[] allocated = (T[]) Array.newInstance(arr.getClass().getComponentType(), length);
+      return allocated;
+    }
+
+    if (scratch.length < length) {
+      throw new IllegalArgumentException("Scratch buffer needs at least " + length + " elements");
+    }
+
+    return scratch;
+  }
+
+  /**
+   * Sorts {@code arr[from, to)} in place, using {@code buffer} to hold the
+   * left half of each merge.
+   */
+  private static void sortRange(int[] arr, int from, int to, int[] buffer) {
+    if (to - from <= INSERTION_SORT_THRESHOLD) {
+      MergeSort.insertionSort(arr, from, to);
+      return;
+    }
+
+    int middle = (from + to) >>> 1;
+    MergeSort.sortRange(arr, from, middle, buffer);
+    MergeSort.sortRange(arr, middle, to, buffer);
+
+    // Both halves are already in order
+    if (arr[middle - 1] <= arr[middle]) {
+      return;
+    }
+
+    int leftLength = middle - from;
+    System.arraycopy(arr, from, buffer, 0, leftLength);
+
+    int pointer1 = 0, pointer2 = middle, pointer3 = from;
+
+    while (pointer1 < leftLength && pointer2 < to) {
+      arr[pointer3++] = (arr[pointer2] < buffer[pointer1]) ? arr[pointer2++] : buffer[pointer1++];
+    }
+
+    while (pointer1 < leftLength) {
+      arr[pointer3++] = buffer[pointer1++];
+    }
+  }
+
+  /**
+   * Sorts {@code arr[from, to)} in place with a stable insertion sort.
+   */
+  private static void insertionSort(int[] arr, int from, int to) {
+    for (int i = from + 1; i < to; i++) {
+      int current = arr[i];
+      int j = i - 1;
+
+      while (j >= from && current < arr[j]) {
+        arr[j + 1] = arr[j];
+        j--;
+      }
+
+      arr[j + 1] = current;
+    }
+  }
+
+  /**
+   * Sorts {@code arr[from, to)} in place, using {@code buffer} to hold the
+   * left half of each merge.
+   */
+  private static void sortRange(long[] arr, int from, int to, long[] buffer) {
+    if (to - from <= INSERTION_SORT_THRESHOLD) {
+      MergeSort.insertionSort(arr, from, to);
+      return;
+    }
+
+    int middle = (from + to) >>> 1;
+    MergeSort.sortRange(arr, from, middle, buffer);
+    MergeSort.sortRange(arr, middle, to, buffer);
+
+    // Both halves are already in order
+    if (arr[middle - 1] <= arr[middle]) {
+      return;
+    }
+
+    int leftLength = middle - from;
+    System.arraycopy(arr, from, buffer, 0, leftLength);
+
+    int pointer1 = 0, pointer2 = middle, pointer3 = from;
+
+    while (pointer1 < leftLength && pointer2 < to) {
+      arr[pointer3++] = (arr[pointer2] < buffer[pointer1]) ? arr[pointer2++] : buffer[pointer1++];
+    }
+
+    while (pointer1 < leftLength) {
+      arr[pointer3++] = buffer[pointer1++];
+    }
+  }
+
+  /**
+   * Sorts {@code arr[from, to)} in place with a stable insertion sort.
+   */
+  private static void insertionSort(long[] arr, int from, int to) {
+    for (int i = from + 1; i < to; i++) {
+      long current = arr[i];
+      int j = i - 1;
+
+      while (j >= from && current < arr[j]) {
+        arr[j + 1] = arr[j];
+        j--;
+      }
+
+      arr[j + 1] = current;
+    }
+  }
+
+  /**
+   * Sorts {@code arr[from, to)} in place, using {@code buffer} to hold the
+   * left half of each merge.
+   */
+  private static void sortRange(double[] arr, int from, int to, double[] buffer) {
+    if (to - from <= INSERTION_SORT_THRESHOLD) {
+      MergeSort.insertionSort(arr, from, to);
+      return;
+    }
+
+    int middle = (from + to) >>> 1;
+    MergeSort.sortRange(arr, from, middle, buffer);
+    MergeSort.sortRange(arr, middle, to, buffer);
+
+    // Both halves are already in order
+    if (Double.compare(arr[middle - 1], arr[middle]) <= 0) {
+      return;
+    }
+
+    int leftLength = middle - from;
+    System.arraycopy(arr, from, buffer, 0, leftLength);
+
+    int pointer1 = 0, pointer2 = middle, pointer3 = from;
+
+    while (pointer1 < leftLength && pointer2 < to) {
+      arr[pointer3++] = (Double.compare(arr[pointer2], buffer[pointer1]) < 0) ? arr[pointer2++] : buffer[pointer1++];
+    }
+
+    while (pointer1 < leftLength) {
+      arr[pointer3++] = buffer[pointer1++];
+    }
+  }
+
+  /**
+   * Sorts {@code arr[from, to)} in place with a stable insertion sort.
+   */
+  private static void insertionSort(double[] arr, int from, int to) {
+    for (int i = from + 1; i < to; i++) {
+      double current = arr[i];
+      int j = i - 1;
+
+      while (j >= from && Double.compare(current, arr[j]) < 0) {
+        arr[j + 1] = arr[j];
+        j--;
+      }
+
+      arr[j + 1] = current;
+    }
+  }
+
+  /**
+   * Checks that {@code [from, to)} is a valid range of an array of the given
+   * length.
+   */
+  private static void rangeCheck(int length, int from, int to) {
+    if (from > to) {
+      throw new IllegalArgumentException("from (" + from + ") > to (" + to + ")");
+    }
+
+    if (from < 0 || to > length) {
+      throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + length);
+    }
+  }
 }
@@ -0,0 +1,908 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import collections.Collection;
+
+/**
+ * A B+ tree implementation of the Collection interface, holding a sorted set
+ * of elements.
+ *
+ * Every node keeps up to {@code fanout} keys in an array, so a lookup visits
+ * only O(log n / log fanout) nodes and searches each of them with a binary
+ * search over contiguous memory. The elements live in the leaves, which are
+ * linked in both directions, so in-order iteration and range scans walk the
+ * leaf arrays without going back up the tree. The inner nodes only hold
+ * separator keys: every key of the child to the left of a separator is
+ * smaller than it, and every key of the child to its right is not.
+ *
+ * Elements are ordered by a comparator, or by their natural ordering, and an
+ * element equal to one already present is not added again. A tree can be
+ * built from sorted input in O(n) with {@link #fromSorted(Iterable)}.
+ *
+ * @param <T> the type of elements held in this tree
+ */
+public class BPlusTree<T> implements Collection<T> {
+
+  private static final int DEFAULT_FANOUT = 64;
+  private static final int MIN_FANOUT = 3;
+
+  /**
+   * A node of the tree. Leaves hold the elements and are linked to their
+   * neighbours; inner nodes hold {@code count} separators and
+   * {@code count + 1} children.
+   */
+  private class Node {
+
+    // one spare slot lets a node overflow before it is split
+    private final Object[] keys;
+    private final Object[] children;
+    private int count;
+    private Node next;
+    private Node previous;
+
+    /**
+     * Constructs a new empty node.
+     *
+     * @param leaf whether the node is a leaf
+     */
+    private Node(boolean leaf) {
+      this.keys = new Object[fanout + 1];
+      this.children = leaf ? null : new Object[fanout + 2];
+      this.count = 0;
+    }
+
+    private boolean isLeaf() {
+      return this.children == null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T key(int index) {
+      return (T) this.keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node child(int index) {
+      return (Node) this.children[index];
+    }
+  }
+
+  /**
+   * An iterator over the elements of the tree, up to an optional upper bound,
+   * that walks the linked leaves.
+   */
+  private class IteratorBPT implements Iterator<T> {
+
+    private Node leaf;
+    private int index;
+    private final T hi;
+
+    /**
+     * Constructs an iterator starting at the specified position.
+     *
+     * @param leaf  the leaf holding the first element
+     * @param index the position of the first element in the leaf
+     * @param hi    the inclusive upper bound, or null for none
+     */
+    private IteratorBPT(Node leaf, int index, T hi) {
+      this.leaf = leaf;
+      this.index = index;
+      this.hi = hi;
+      this.skipExhaustedLeaves();
+    }
+
+    /**
+     * Returns {@code true} if the iteration has more elements.
+     *
+     * @return {@code true} if the iteration has more elements
+     */
+    @Override
+    public boolean hasNext() {
+      if (this.leaf == null) {
+        return false;
+      }
+
+      return this.hi == null || comparator.compare(this.leaf.key(this.index), this.hi) <= 0;
+    }
+
+    /**
+     * Returns the next element in the iteration.
+     *
+     * @return the next element in the iteration
+     * @throws NoSuchElementException if the iteration has no more elements
+     */
+    @Override
+    public T next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      T element = this.leaf.key(this.index++);
+      this.skipExhaustedLeaves();
+
+      return element;
+    }
+
+    private void skipExhaustedLeaves() {
+      while (this.leaf != null && this.index >= this.leaf.count) {
+        this.leaf = this.leaf.next;
+        this.index = 0;
+      }
+    }
+  }
+
+  private final Comparator<? super T> comparator;
+  private final int fanout;
+  private final int minKeys;
+  private Node root;
+  private int elements;
+
+  // set by insert when the element was not already present
+  private boolean added;
+
+  /**
+   * Constructs an empty tree ordered by the natural ordering of its elements,
+   * with the default fanout.
+   */
+  public BPlusTree() {
+    this(BPlusTree.<T>naturalOrder(), DEFAULT_FANOUT);
+  }
+
+  /**
+   * Constructs a tree containing the elements of the specified collection,
+   * ordered by their natural ordering, with the default fanout.
+   *
+   * @param collection the collection whose elements are to be placed into this
+   *                   tree
+   */
+  public BPlusTree(Collection<T> collection) {
+    this(BPlusTree.<T>naturalOrder(), DEFAULT_FANOUT);
+    for (T elem : collection) {
+      this.add(elem);
+    }
+  }
+
+  /**
+   * Constructs an empty tree ordered by the specified comparator, with the
+   * default fanout.
+   *
+   * @param comparator the comparator used to order the elements
+   * @throws IllegalArgumentException if the comparator is null
+   */
+  public BPlusTree(Comparator<? super T> comparator) {
+    this(comparator, DEFAULT_FANOUT);
+  }
+
+  /**
+   * Constructs an empty tree ordered by the specified comparator whose nodes
+   * hold at most {@code fanout} keys.
+   *
+   * @param comparator the comparator used to order the elements
+   * @param fanout     the maximum number of keys per node
+   * @throws IllegalArgumentException if the comparator is null or the fanout
+   *                                  is less than 3
+   */
+  public BPlusTree(Comparator<? super T> comparator, int fanout) {
+    if (comparator == null) {
+      throw new IllegalArgumentException("Comparator cannot be null");
+    }
+    if (fanout < MIN_FANOUT) {
+      throw new IllegalArgumentException("Fanout must be at least " + MIN_FANOUT);
+    }
+
+    this.comparator = comparator;
+    this.fanout = fanout;
+    this.minKeys = fanout / 2;
+    this.root = new Node(true);
+    this.elements = 0;
+  }
+
+  /**
+   * Builds a tree ordered by the natural ordering of its elements, with the
+   * default fanout, from elements given in strictly ascending order.
+   *
+   * @param <T>    the type of elements held in the tree
+   * @param sorted the elements, in strictly ascending order
+   * @return a new tree holding the elements
+   * @throws IllegalArgumentException if an element is null or the elements
+   *                                  are not in strictly ascending order
+   */
+  public static <T> BPlusTree<T> fromSorted(Iterable<? extends T> sorted) {
+    return BPlusTree.fromSorted(sorted, BPlusTree.<T>naturalOrder(), DEFAULT_FANOUT);
+  }
+
+  /**
+   * Builds a tree from elements given in strictly ascending order of the
+   * specified comparator, in O(n). The leaves are filled almost completely and
+   * the levels above them are built one at a time, so no element is ever
+   * compared except to check the order of the input.
+   *
+   * @param <T>        the type of elements held in the tree
+   * @param sorted     the elements, in strictly ascending order
+   * @param comparator the comparator used to order the elements
+   * @param fanout     the maximum number of keys per node
+   * @return a new tree holding the elements
+   * @throws IllegalArgumentException if the comparator is null, the fanout is
+   *                                  less than 3, an element is null or the
+   *                                  elements are not in strictly ascending
+   *                                  order
+   */
+  public static <T> BPlusTree<T> fromSorted(Iterable<? extends T> sorted, Comparator<? super T> comparator,
+      int fanout) {
+    BPlusTree<T> tree = new BPlusTree<>(comparator, fanout);
+    tree.bulkLoad(sorted);
+    return tree;
+  }
+
+  /**
+   * Adds the specified element to the tree, unless an equal element is
+   * already present.
+   *
+   * @param element the element to be added
+   * @throws IllegalArgumentException if the element is null
+   */
+  @Override
+  public void add(T element) {
+    if (element == null) {
+      throw new IllegalArgumentException("Element cannot be null");
+    }
+
+    this.added = false;
+    Node right = this.insert(this.root, element);
+
+    if (right != null) {
+      Node newRoot = new Node(false);
+      newRoot.keys[0] = this.firstKey(right);
+      newRoot.children[0] = this.root;
+      newRoot.children[1] = right;
+      newRoot.count = 1;
+      this.root = newRoot;
+    }
+
+    if (this.added) {
+      this.elements++;
+    }
+  }
+
+  /**
+   * Removes the specified element from the tree, if it is present.
+   *
+   * @param element the element to be removed
+   */
+  @Override
+  public void remove(T element) {
+    if (element == null || !this.delete(this.root, element)) {
+      return;
+    }
+
+    this.elements--;
+
+    if (!this.root.isLeaf() && this.root.count == 0) {
+      this.root = this.root.child(0);
+    }
+  }
+
+  /**
+   * Checks if the tree contains an element equal to the specified one.
+   *
+   * @param element the element to be searched for
+   * @return true if the tree contains the element, false otherwise
+   */
+  @Override
+  public boolean contains(T element) {
+    return this.search(element) != null;
+  }
+
+  /**
+   * Searches for the specified element in this tree.
+   *
+   * @param element the element to be searched for
+   * @return the element of the tree equal to the specified one, or
+   *         {@code null} if there is none
+   */
+  public T search(T element) {
+    if (element == null) {
+      return null;
+    }
+
+    Node leaf = this.leafFor(element);
+    int index = this.lowerBound(leaf, element);
+
+    if (index < leaf.count && this.comparator.compare(leaf.key(index), element) == 0) {
+      return leaf.key(index);
+    }
+    return null;
+  }
+
+  /**
+   * Checks if the tree is empty.
+   *
+   * @return true if the tree is empty, false otherwise
+   */
+  @Override
+  public boolean isEmpty() {
+    return this.elements == 0;
+  }
+
+  /**
+   * Gets the number of elements in the tree.
+   *
+   * @return the number of elements in the tree
+   */
+  @Override
+  public int getElements() {
+    return this.elements;
+  }
+
+  /**
+   * Removes all elements from the tree.
+   */
+  @Override
+  public void clear() {
+    this.root = new Node(true);
+    this.elements = 0;
+  }
+
+  /**
+   * Returns an iterator over the elements in this tree in ascending order.
+   *
+   * @return an iterator over the elements in this tree
+   */
+  @Override
+  public Iterator<T> iterator() {
+    Node leaf = this.root;
+    while (!leaf.isLeaf()) {
+      leaf = leaf.child(0);
+    }
+
+    return new IteratorBPT(leaf, 0, null);
+  }
+
+  /**
+   * Returns an iterator over the elements of this tree between {@code lo} and
+   * {@code hi}, both inclusive, in ascending order. The iterator descends
+   * straight to {@code lo} and then scans the leaves until {@code hi}, so a
+   * scan costs O(log n + k) for k elements in the range.
+   *
+   * @param lo the lower bound of the range
+   * @param hi the upper bound of the range
+   * @return an iterator over the elements in the range
+   * @throws IllegalArgumentException if a bound is null
+   */
+  public Iterator<T> range(T lo, T hi) {
+    if (lo == null || hi == null) {
+      throw new IllegalArgumentException("Bounds cannot be null");
+    }
+
+    Node leaf = this.leafFor(lo);
+    return new IteratorBPT(leaf, this.lowerBound(leaf, lo), hi);
+  }
+
+  /**
+   * Returns the smallest element in this tree.
+   *
+   * @return the smallest element
+   * @throws NoSuchElementException if the tree is empty
+   */
+  public T first() {
+    if (this.elements == 0) {
+      throw new NoSuchElementException("The tree is empty");
+    }
+
+    return this.iterator().next();
+  }
+
+  /**
+   * Returns the largest element in this tree.
+   *
+   * @return the largest element
+   * @throws NoSuchElementException if the tree is empty
+   */
+  public T last() {
+    if (this.elements == 0) {
+      throw new NoSuchElementException("The tree is empty");
+    }
+
+    Node node = this.root;
+    while (!node.isLeaf()) {
+      node = node.child(node.count);
+    }
+
+    return node.key(node.count - 1);
+  }
+
+  /**
+   * Returns the largest element in this tree less than or equal to the
+   * specified element.
+   *
+   * @param element the element to compare against
+   * @return the greatest element not above the element, or {@code null} if
+   *         there is none
+   */
+  public T floor(T element) {
+    Node leaf = this.leafFor(element);
+    return this.before(leaf, this.upperBound(leaf, element));
+  }
+
+  /**
+   * Returns the largest element in this tree strictly less than the specified
+   * element.
+   *
+   * @param element the element to compare against
+   * @return the greatest element below the element, or {@code null} if there
+   *         is none
+   */
+  public T lower(T element) {
+    Node leaf = this.leafFor(element);
+    return this.before(leaf, this.lowerBound(leaf, element));
+  }
+
+  /**
+   * Returns the smallest element in this tree greater than or equal to the
+   * specified element.
+   *
+   * @param element the element to compare against
+   * @return the least element not below the element, or {@code null} if there
+   *         is none
+   */
+  public T ceiling(T element) {
+    Node leaf = this.leafFor(element);
+    return this.from(leaf, this.lowerBound(leaf, element));
+  }
+
+  /**
+   * Returns the smallest element in this tree strictly greater than the
+   * specified element.
+   *
+   * @param element the element to compare against
+   * @return the least element above the element, or {@code null} if there is
+   *         none
+   */
+  public T higher(T element) {
+    Node leaf = this.leafFor(element);
+    return this.from(leaf, this.upperBound(leaf, element));
+  }
+
+  /**
+   * Returns the height of this tree, counting the leaves as level 0.
+   *
+   * @return the height of the tree
+   */
+  public int height() {
+    int height = 0;
+
+    for (Node node = this.root; !node.isLeaf(); node = node.child(0)) {
+      height++;
+    }
+    return height;
+  }
+
+  /**
+   * Returns the comparator used to order this tree.
+   *
+   * @return the comparator of this tree
+   */
+  public Comparator<? super T> comparator() {
+    return this.comparator;
+  }
+
+  /**
+   * Returns a string representation of the tree.
+   *
+   * @return a string representation of the tree
+   */
+  @Override
+  public String toString() {
+    StringBuilder rep = new StringBuilder("[");
+
+    for (T element : this) {
+      if (rep.length() > 1) {
+        rep.append(", ");
+      }
+      rep.append(element);
+    }
+
+    return rep.append(']').toString();
+  }
+
+  /**
+   * Inserts the element into the subtree rooted at the specified node,
+   * splitting the nodes that overflow on the way back up.
+   *
+   * @param node    the root of the subtree
+   * @param element the element to be inserted
+   * @return the new right sibling of the node if it was split, or null
+   */
+  private Node insert(Node node, T element) {
+    if (node.isLeaf()) {
+      int index = this.lowerBound(node, element);
+
+      if (index < node.count && this.comparator.compare(node.key(index), element) == 0) {
+        return null;
+      }
+
+      this.insertAt(node, index, element, null);
+      this.added = true;
+
+      return node.count > this.fanout ? this.splitLeaf(node) : null;
+    }
+
+    int index = this.upperBound(node, element);
+    Node right = this.insert(node.child(index), element);
+
+    if (right == null) {
+      return null;
+    }
+
+    this.insertAt(node, index, this.firstKey(right), right);
+
+    return node.count > this.fanout ? this.splitInner(node) : null;
+  }
+
+  /**
+   * Moves the upper half of an overflowing leaf into a new leaf linked after
+   * it.
+   */
+  private Node splitLeaf(Node leaf) {
+    Node right = new Node(true);
+    int keep = leaf.count / 2;
+
+    right.count = leaf.count - keep;
+    System.arraycopy(leaf.keys, keep, right.keys, 0, right.count);
+    Arrays.fill(leaf.keys, keep, leaf.count, null);
+    leaf.count = keep;
+
+    right.next = leaf.next;
+    right.previous = leaf;
+    if (leaf.next != null) {
+      leaf.next.previous = right;
+    }
+    leaf.next = right;
+
+    return right;
+  }
+
+  /**
+   * Moves the upper half of an overflowing inner node into a new node. The
+   * middle separator moves up to the parent, which reads it back as the
+   * first key of the new node's subtree.
+   */
+  private Node splitInner(Node node) {
+    Node right = new Node(false);
+    int middle = node.count / 2;
+
+    right.count = node.count - middle - 1;
+    System.arraycopy(node.keys, middle + 1, right.keys, 0, right.count);
+    System.arraycopy(node.children, middle + 1, right.children, 0, right.count + 1);
+    Arrays.fill(node.keys, middle, node.count, null);
+    Arrays.fill(node.children, middle + 1, node.count + 1, null);
+    node.count = middle;
+
+    return right;
+  }
+
+  /**
+   * Removes the element from the subtree rooted at the specified node,
+   * refilling the children that underflow on the way back up.
+   *
+   * @param node    the root of the subtree
+   * @param element the element to be removed
+   * @return true if the element was found and removed
+   */
+  private boolean delete(Node node, T element) {
+    if (node.isLeaf()) {
+      int index = this.lowerBound(node, element);
+
+      if (index == node.count || this.comparator.compare(node.key(index), element) != 0) {
+        return false;
+      }
+
+      this.removeAt(node, index);
+      return true;
+    }
+
+    int index = this.upperBound(node, element);
+    Node child = node.child(index);
+
+    if (!this.delete(child, element)) {
+      return false;
+    }
+
+    if (child.count < this.minKeys) {
+      this.refill(node, index);
+    }
+    return true;
+  }
+
+  /**
+   * Brings the underflowing child at the specified position back to the
+   * minimum number of keys, by borrowing a key from a sibling that can spare
+   * one or else merging it with a sibling.
+   *
+   * @param parent the parent of the child
+   * @param index  the position of the child in the parent
+   */
+  private void refill(Node parent, int index) {
+    Node child = parent.child(index);
+    Node left = index > 0 ? parent.child(index - 1) : null;
+    Node right = index < parent.count ? parent.child(index + 1) : null;
+
+    if (left != null && left.count > this.minKeys) {
+      this.borrowFromLeft(parent, index - 1, left, child);
+    } else if (right != null && right.count > this.minKeys) {
+      this.borrowFromRight(parent, index, child, right);
+    } else if (left != null) {
+      this.merge(parent, index - 1, left, child);
+    } else {
+      this.merge(parent, index, child, right);
+    }
+  }
+
+  /**
+   * Moves the last key of the left sibling into the front of the node, the
+   * separator between them being at {@code separator} in the parent.
+   */
+  private void borrowFromLeft(Node parent, int separator, Node left, Node node) {
+    if (node.isLeaf()) {
+      this.insertAt(node, 0, left.key(left.count - 1), null);
+      this.removeAt(left, left.count - 1);
+      parent.keys[separator] = node.keys[0];
+      return;
+    }
+
+    // rotate through the parent: its separator comes down, the last key of
+    // the sibling goes up, and the sibling's last child changes sides
+    System.arraycopy(node.keys, 0, node.keys, 1, node.count);
+    System.arraycopy(node.children, 0, node.children, 1, node.count + 1);
+    node.keys[0] = parent.keys[separator];
+    node.children[0] = left.children[left.count];
+    node.count++;
+
+    parent.keys[separator] = left.keys[left.count - 1];
+    left.keys[left.count - 1] = null;
+    left.children[left.count] = null;
+    left.count--;
+  }
+
+  /**
+   * Moves the first key of the right sibling onto the end of the node, the
+   * separator between them being at {@code separator} in the parent.
+   */
+  private void borrowFromRight(Node parent, int separator, Node node, Node right) {
+    if (node.isLeaf()) {
+      this.insertAt(node, node.count, right.key(0), null);
+      this.removeAt(right, 0);
+      parent.keys[separator] = right.keys[0];
+      return;
+    }
+
+    node.keys[node.count] = parent.keys[separator];
+    node.children[node.count + 1] = right.children[0];
+    node.count++;
+
+    parent.keys[separator] = right.keys[0];
+    System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+    System.arraycopy(right.children, 1, right.children, 0, right.count);
+    right.keys[right.count - 1] = null;
+    right.children[right.count] = null;
+    right.count--;
+  }
+
+  /**
+   * Appends the right node to the left one and drops the right node and the
+   * separator between them, at {@code separator}, from the parent.
+   */
+  private void merge(Node parent, int separator, Node left, Node right) {
+    if (left.isLeaf()) {
+      System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+      left.count += right.count;
+
+      left.next = right.next;
+      if (right.next != null) {
+        right.next.previous = left;
+      }
+    } else {
+      left.keys[left.count] = parent.keys[separator];
+      System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+      System.arraycopy(right.children, 0, left.children, left.count + 1, right.count + 1);
+      left.count += right.count + 1;
+    }
+
+    System.arraycopy(parent.keys, separator + 1, parent.keys, separator, parent.count - separator - 1);
+    System.arraycopy(parent.children, separator + 2, parent.children, separator + 1, parent.count - separator - 1);
+    parent.keys[parent.count - 1] = null;
+    parent.children[parent.count] = null;
+    parent.count--;
+  }
+
+  /**
+   * Inserts a key, and for inner nodes the child to its right, at the
+   * specified position of the node.
+   */
+  private void insertAt(Node node, int index, T key, Node rightChild) {
+    System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+    node.keys[index] = key;
+
+    if (!node.isLeaf()) {
+      System.arraycopy(node.children, index + 1, node.children, index + 2, node.count - index);
+      node.children[index + 1] = rightChild;
+    }
+    node.count++;
+  }
+
+  /**
+   * Removes the key at the specified position of a leaf.
+   */
+  private void removeAt(Node leaf, int index) {
+    System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.count - index - 1);
+    leaf.keys[--leaf.count] = null;
+  }
+
+  /**
+   * Fills the empty tree with the sorted elements: the leaves first, split as
+   * evenly as possible so each holds at least the minimum number of keys, and
+   * then each level of inner nodes over the one below until a single node
+   * remains.
+   */
+  private void bulkLoad(Iterable<? extends T> sorted) {
+    ArrayList<T> input = new ArrayList<>();
+    T previous = null;
+
+    for (T element : sorted) {
+      if (element == null) {
+        throw new IllegalArgumentException("Element cannot be null");
+      }
+      if (previous != null && this.comparator.compare(previous, element) >= 0) {
+        throw new IllegalArgumentException("Elements must be in strictly ascending order");
+      }
+      input.add(element);
+      previous = element;
+    }
+
+    if (input.isEmpty()) {
+      return;
+    }
+
+    int leaves = (input.size() + this.fanout - 1) / this.fanout;
+    Object[] level = new Object[leaves];
+    Object[] firstKeys = new Object[leaves];
+    Node previousLeaf = null;
+    int position = 0;
+
+    for (int i = 0; i < leaves; i++) {
+      Node leaf = new Node(true);
+      leaf.count = input.size() / leaves + (i < input.size() % leaves ? 1 : 0);
+
+      for (int j = 0; j < leaf.count; j++) {
+        leaf.keys[j] = input.get(position++);
+      }
+
+      leaf.previous = previousLeaf;
+      if (previousLeaf != null) {
+        previousLeaf.next = leaf;
+      }
+      previousLeaf = leaf;
+
+      level[i] = leaf;
+      firstKeys[i] = leaf.keys[0];
+    }
+
+    while (level.length > 1) {
+      int parents = (level.length + this.fanout) / (this.fanout + 1);
+      Object[] upper = new Object[parents];
+      Object[] upperFirstKeys = new Object[parents];
+      position = 0;
+
+      for (int i = 0; i < parents; i++) {
+        Node node = new Node(false);
+        int children = level.length / parents + (i < level.length % parents ? 1 : 0);
+
+        upperFirstKeys[i] = firstKeys[position];
+        node.children[0] = level[position++];
+        for (int j = 1; j < children; j++) {
+          node.keys[j - 1] = firstKeys[position];
+          node.children[j] = level[position++];
+        }
+        node.count = children - 1;
+
+        upper[i] = node;
+      }
+
+      level = upper;
+      firstKeys = upperFirstKeys;
+    }
+
+    @SuppressWarnings("unchecked")
+    Node newRoot = (Node) level[0];
+    this.root = newRoot;
+    this.elements = input.size();
+  }
+
+  /**
+   * Returns the leaf where the specified element is, or would be inserted.
+   */
+  private Node leafFor(T element) {
+    Node node = this.root;
+
+    while (!node.isLeaf()) {
+      node = node.child(this.upperBound(node, element));
+    }
+    return node;
+  }
+
+  /**
+   * Returns the smallest key in the subtree rooted at the specified node.
+   */
+  private T firstKey(Node node) {
+    while (!node.isLeaf()) {
+      node = node.child(0);
+    }
+    return node.key(0);
+  }
+
+  /**
+   * Returns the element just before the specified position of a leaf, looking
+   * into the previous leaf if needed, or null if there is none.
+   */
+  private T before(Node leaf, int index) {
+    if (index > 0) {
+      return leaf.key(index - 1);
+    }
+
+    Node previous = leaf.previous;
+    return previous == null ? null : previous.key(previous.count - 1);
+  }
+
+  /**
+   * Returns the element at the specified position of a leaf, looking into the
+   * next leaf if the position is past its end, or null if there is none.
+   */
+  private T from(Node leaf, int index) {
+    if (index < leaf.count) {
+      return leaf.key(index);
+    }
+
+    Node next = leaf.next;
+    return next == null ? null : next.key(0);
+  }
+
+  /**
+   * Returns the position of the first key of the node not less than the
+   * specified element.
+   */
+  private int lowerBound(Node node, T element) {
+    return this.bound(node, element, false);
+  }
+
+  /**
+   * Returns the position of the first key of the node greater than the
+   * specified element, which for an inner node is the child to descend into.
+   */
+  private int upperBound(Node node, T element) {
+    return this.bound(node, element, true);
+  }
+
+  private int bound(Node node, T element, boolean upper) {
+    int low = 0;
+    int high = node.count;
+
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      int comparison = this.comparator.compare(node.key(middle), element);
+
+      if (comparison < 0 || (upper && comparison == 0)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Comparator<? super T> naturalOrder() {
+    return (Comparator<? super T>) Comparator.naturalOrder();
+  }
+}
@@ -0,0 +1,436 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import collections.Collection;
+
+/**
+ * Class representing a complete binary tree stored in a contiguous array.
+ *
+ * The element at index {@code i} has its children at {@code 2i + 1} and
+ * {@code 2i + 2}, so appending and locating the last node are O(1) and no node
+ * objects are kept per element. Nodes returned by {@link #root()},
+ * {@link #search(Object)} and {@link #bfs(ActionNodeBinaryTree)} are
+ * lightweight views over an index of the array.
+ *
+ * @param <T> the type of elements in this tree
+ */
+public class ArrayCompleteBinaryTree<T> extends CompleteBinaryTree<T> {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * Inner class representing a view over a position of the array.
+   */
+  protected class IndexNode implements NodeBinaryTree<T> {
+    private final int index;
+
+    /**
+     * Constructs a new view over the specified position.
+     *
+     * @param index the position of the node in the array
+     */
+    protected IndexNode(int index) {
+      this.index = index;
+    }
+
+    /**
+     * Returns the position of this node in the array.
+     *
+     * @return the position of this node
+     */
+    public int index() {
+      return this.index;
+    }
+
+    @Override
+    public boolean hasParent() {
+      return this.index > 0;
+    }
+
+    @Override
+    public boolean hasLeft() {
+      return 2L * this.index + 1 < elements;
+    }
+
+    @Override
+    public boolean hasRight() {
+      return 2L * this.index + 2 < elements;
+    }
+
+    @Override
+    public NodeBinaryTree<T> parent() {
+      if (!this.hasParent()) {
+        throw new NoSuchElementException("No parent node");
+      }
+
+      return new IndexNode(parentIndex(this.index));
+    }
+
+    @Override
+    public NodeBinaryTree<T> leftChild() {
+      if (!this.hasLeft()) {
+        throw new NoSuchElementException("No left child node");
+      }
+
+      return new IndexNode(leftIndex(this.index));
+    }
+
+    @Override
+    public NodeBinaryTree<T> rightChild() {
+      if (!this.hasRight()) {
+        throw new NoSuchElementException("No right child node");
+      }
+
+      return new IndexNode(rightIndex(this.index));
+    }
+
+    @Override
+    public int height() {
+      // The leftmost path is always the longest one in a complete tree
+      int height = 0;
+      long current = 2L * this.index + 1;
+
+      while (current < elements) {
+        height++;
+        current = 2 * current + 1;
+      }
+
+      return height;
+    }
+
+    @Override
+    public int depth() {
+      return 31 - Integer.numberOfLeadingZeros(this.index + 1);
+    }
+
+    @Override
+    public T get() {
+      return elementAt(this.index);
+    }
+
+    @Override
+    public String toString() {
+      return "" + this.get();
+    }
+  }
+
+  /**
+   * Inner class representing an iterator for the array-backed tree. The array
+   * is already laid out in level order, so it is walked sequentially.
+   */
+  private class IteratorACBT implements Iterator<T> {
+    private int current;
+
+    @Override
+    public boolean hasNext() {
+      return this.current < elements;
+    }
+
+    @Override
+    public T next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return elementAt(this.current++);
+    }
+  }
+
+  protected Object[] array;
+
+  /**
+   * Constructs an empty array-backed complete binary tree.
+   */
+  public ArrayCompleteBinaryTree() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty array-backed complete binary tree able to hold the
+   * specified number of elements before growing.
+   *
+   * @param capacity the initial capacity of the tree
+   * @throws IllegalArgumentException if the capacity is negative
+   */
+  public ArrayCompleteBinaryTree(int capacity) {
+    super();
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative");
+    }
+
+    this.array = new Object[capacity];
+  }
+
+  /**
+   * Constructs an array-backed complete binary tree containing the elements of
+   * the specified collection.
+   *
+   * @param collection the collection whose elements are to be placed into this
+   *                   tree
+   */
+  public ArrayCompleteBinaryTree(Collection<T> collection) {
+    this(Math.max(collection.getElements(), DEFAULT_CAPACITY));
+    for (T elem : collection) {
+      this.add(elem);
+    }
+  }
+
+  /**
+   * Adds the specified element at the next free position of this tree.
+   *
+   * @param element the element to be added
+   * @throws IllegalArgumentException if the element is null
+   */
+  @Override
+  public void add(T element) {
+    if (element == null) {
+      throw new IllegalArgumentException("Element cannot be null");
+    }
+
+    this.ensureCapacity(this.elements + 1);
+    this.array[this.elements++] = element;
+  }
+
+  /**
+   * Removes the specified element from this tree, replacing it with the last
+   * element so the tree stays complete.
+   *
+   * @param element the element to be removed
+   */
+  @Override
+  public void remove(T element) {
+    int index = this.indexOf(element);
+    if (index < 0) {
+      return;
+    }
+
+    this.removeAt(index);
+  }
+
+  @Override
+  public boolean contains(T element) {
+    return this.indexOf(element) >= 0;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.elements == 0;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(this.array, 0, this.elements, null);
+    this.elements = 0;
+  }
+
+  @Override
+  public NodeBinaryTree<T> search(T element) {
+    int index = this.indexOf(element);
+    return index < 0 ? null : new IndexNode(index);
+  }
+
+  @Override
+  public NodeBinaryTree<T> root() {
+    if (this.elements == 0) {
+      throw new NoSuchElementException("The tree is empty");
+    }
+
+    return new IndexNode(0);
+  }
+
+  @Override
+  public int height() {
+    if (this.elements == 0) {
+      return -1;
+    }
+
+    return 31 - Integer.numberOfLeadingZeros(this.elements);
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return new IteratorACBT();
+  }
+
+  /**
+   * Applies the specified action to each node in level order. The array is
+   * already laid out in level order, so no queue is needed.
+   *
+   * @param action the action to be applied to each node
+   */
+  @Override
+  public void bfs(ActionNodeBinaryTree<T> action) {
+    for (int i = 0; i < this.elements; i++) {
+      action.current(new IndexNode(i));
+    }
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object == null || getClass() != object.getClass()) {
+      return false;
+    }
+    @SuppressWarnings("unchecked")
+    ArrayCompleteBinaryTree<T> tree = (ArrayCompleteBinaryTree<T>) object;
+
+    if (this.elements != tree.elements) {
+      return false;
+    }
+
+    for (int i = 0; i < this.elements; i++) {
+      if (!this.array[i].equals(tree.array[i])) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 1;
+
+    for (int i = 0; i < this.elements; i++) {
+      hash = 31 * hash + this.array[i].hashCode();
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "ArrayCompleteBinaryTree with " + elements + " elements";
+  }
+
+  /**
+   * Returns the node at the specified position of the array.
+   *
+   * @param index the position of the node
+   * @return a view over the node at the specified position
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  public NodeBinaryTree<T> nodeAt(int index) {
+    if (index < 0 || index >= this.elements) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    return new IndexNode(index);
+  }
+
+  /**
+   * Makes sure the array can hold at least the specified number of elements,
+   * growing its length by half when it has to grow.
+   *
+   * @param capacity the minimum number of elements to be held
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity <= this.array.length) {
+      return;
+    }
+
+    int newCapacity = Math.max(capacity, this.array.length + (this.array.length >> 1) + 1);
+    this.array = Arrays.copyOf(this.array, newCapacity);
+  }
+
+  /**
+   * Returns the element stored at the specified position.
+   *
+   * @param index the position of the element
+   * @return the element at the specified position
+   */
+  @SuppressWarnings("unchecked")
+  protected T elementAt(int index) {
+    return (T) this.array[index];
+  }
+
+  /**
+   * Stores the specified element at the specified position.
+   *
+   * @param index   the position of the element
+   * @param element the element to be stored
+   */
+  protected void setAt(int index, T element) {
+    this.array[index] = element;
+  }
+
+  /**
+   * Swaps the elements stored at the specified positions.
+   *
+   * @param i the position of the first element
+   * @param j the position of the second element
+   */
+  protected void swap(int i, int j) {
+    Object tmp = this.array[i];
+    this.array[i] = this.array[j];
+    this.array[j] = tmp;
+  }
+
+  /**
+   * Returns the position of the first occurrence of the specified element in
+   * level order, or -1 if it is not present.
+   *
+   * @param element the element to search for
+   * @return the position of the element, or -1 if not found
+   */
+  protected int indexOf(T element) {
+    if (element == null) {
+      return -1;
+    }
+
+    for (int i = 0; i < this.elements; i++) {
+      if (element.equals(this.array[i])) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Removes the element at the specified position by moving the last element
+   * into its place.
+   *
+   * @param index the position of the element to be removed
+   * @return the removed element
+   */
+  protected T removeAt(int index) {
+    T removed = this.elementAt(index);
+    int last = --this.elements;
+
+    if (index != last) {
+      this.swap(index, last);
+    }
+
+    this.array[last] = null;
+    return removed;
+  }
+
+  /**
+   * Returns the position of the parent of the specified position.
+   *
+   * @param index the position of the child
+   * @return the position of its parent
+   */
+  protected static int parentIndex(int index) {
+    return (index - 1) >>> 1;
+  }
+
+  /**
+   * Returns the position of the left child of the specified position.
+   *
+   * @param index the position of the parent
+   * @return the position of its left child
+   */
+  protected static int leftIndex(int index) {
+    return (index << 1) + 1;
+  }
+
+  /**
+   * Returns the position of the right child of the specified position.
+   *
+   * @param index the position of the parent
+   * @return the position of its right child
+   */
+  protected static int rightIndex(int index) {
+    return (index << 1) + 2;
+  }
+}
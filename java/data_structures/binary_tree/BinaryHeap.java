@@ -0,0 +1,474 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import collections.Collection;
+
+/**
+ * A binary heap built on the array-backed complete binary tree.
+ *
+ * The element at the root is always the smallest one according to the heap's
+ * comparator, so a min-heap uses the natural ordering and a max-heap uses the
+ * reversed one. Elements offered through {@link #offer(Object)} get a
+ * {@link Handle} that can later be used to change their priority or remove
+ * them in O(log n).
+ *
+ * @param <T> the type of elements in this heap
+ */
+public class BinaryHeap<T> extends ArrayCompleteBinaryTree<T> {
+
+  /**
+   * A reference to an element of the heap that follows it while it moves
+   * between positions.
+   */
+  public final class Handle {
+    private int index;
+
+    /**
+     * Constructs a handle for the element at the specified position.
+     *
+     * @param index the position of the element
+     */
+    private Handle(int index) {
+      this.index = index;
+    }
+
+    /**
+     * Returns the element referenced by this handle.
+     *
+     * @return the element referenced by this handle
+     * @throws NoSuchElementException if the element was removed from the heap
+     */
+    public T get() {
+      if (!this.isValid()) {
+        throw new NoSuchElementException("Element is no longer in the heap");
+      }
+
+      return elementAt(this.index);
+    }
+
+    /**
+     * Checks if the referenced element is still in the heap.
+     *
+     * @return true if the element is still in the heap, false otherwise
+     */
+    public boolean isValid() {
+      return this.index >= 0;
+    }
+  }
+
+  private final Comparator<? super T> comparator;
+  private Object[] handles;
+
+  /**
+   * Constructs an empty heap ordered by the specified comparator.
+   *
+   * @param comparator the comparator used to order the elements
+   * @throws IllegalArgumentException if the comparator is null
+   */
+  public BinaryHeap(Comparator<? super T> comparator) {
+    super();
+    if (comparator == null) {
+      throw new IllegalArgumentException("Comparator cannot be null");
+    }
+
+    this.comparator = comparator;
+  }
+
+  /**
+   * Constructs a heap containing the elements of the specified collection,
+   * ordered by the specified comparator. The heap is built bottom-up in O(n).
+   *
+   * @param collection the collection whose elements are to be placed into this
+   *                   heap
+   * @param comparator the comparator used to order the elements
+   * @throws IllegalArgumentException if the comparator or any element is null
+   */
+  public BinaryHeap(Collection<T> collection, Comparator<? super T> comparator) {
+    super(collection.getElements());
+    if (comparator == null) {
+      throw new IllegalArgumentException("Comparator cannot be null");
+    }
+
+    this.comparator = comparator;
+
+    for (T elem : collection) {
+      if (elem == null) {
+        throw new IllegalArgumentException("Element cannot be null");
+      }
+
+      this.ensureCapacity(this.elements + 1);
+      this.array[this.elements++] = elem;
+    }
+
+    for (int i = (this.elements >>> 1) - 1; i >= 0; i--) {
+      this.siftDown(i);
+    }
+  }
+
+  /**
+   * Constructs an empty heap whose root is the smallest element.
+   *
+   * @param <E> the type of elements in the heap, which must be comparable
+   * @return a new min-heap
+   */
+  public static <E extends Comparable<? super E>> BinaryHeap<E> minHeap() {
+    return new BinaryHeap<>(Comparator.<E>naturalOrder());
+  }
+
+  /**
+   * Constructs an empty heap whose root is the largest element.
+   *
+   * @param <E> the type of elements in the heap, which must be comparable
+   * @return a new max-heap
+   */
+  public static <E extends Comparable<? super E>> BinaryHeap<E> maxHeap() {
+    return new BinaryHeap<>(Comparator.<E>reverseOrder());
+  }
+
+  /**
+   * Builds a min-heap containing the elements of the specified collection.
+   *
+   * @param <E>        the type of elements in the heap, which must be
+   *                   comparable
+   * @param collection the collection whose elements are to be placed into the
+   *                   heap
+   * @return a new min-heap
+   */
+  public static <E extends Comparable<? super E>> BinaryHeap<E> minHeap(Collection<E> collection) {
+    return new BinaryHeap<>(collection, Comparator.<E>naturalOrder());
+  }
+
+  /**
+   * Builds a max-heap containing the elements of the specified collection.
+   *
+   * @param <E>        the type of elements in the heap, which must be
+   *                   comparable
+   * @param collection the collection whose elements are to be placed into the
+   *                   heap
+   * @return a new max-heap
+   */
+  public static <E extends Comparable<? super E>> BinaryHeap<E> maxHeap(Collection<E> collection) {
+    return new BinaryHeap<>(collection, Comparator.<E>reverseOrder());
+  }
+
+  /**
+   * Adds the specified element to this heap.
+   *
+   * @param element the element to be added
+   * @throws IllegalArgumentException if the element is null
+   */
+  @Override
+  public void add(T element) {
+    super.add(element);
+    this.siftUp(this.elements - 1);
+  }
+
+  /**
+   * Adds the specified element to this heap and returns a handle to it.
+   *
+   * @param element the element to be added
+   * @return a handle referencing the added element
+   * @throws IllegalArgumentException if the element is null
+   */
+  public Handle offer(T element) {
+    super.add(element);
+
+    if (this.handles == null) {
+      this.handles = new Object[this.array.length];
+    }
+
+    int index = this.elements - 1;
+    Handle handle = new Handle(index);
+    this.handles[index] = handle;
+    this.siftUp(index);
+
+    return handle;
+  }
+
+  /**
+   * Returns the root of this heap without removing it.
+   *
+   * @return the first element according to the heap's order
+   * @throws NoSuchElementException if the heap is empty
+   */
+  public T peek() {
+    if (this.elements == 0) {
+      throw new NoSuchElementException("Heap is empty");
+    }
+
+    return this.elementAt(0);
+  }
+
+  /**
+   * Removes and returns the root of this heap.
+   *
+   * @return the first element according to the heap's order
+   * @throws NoSuchElementException if the heap is empty
+   */
+  public T poll() {
+    if (this.elements == 0) {
+      throw new NoSuchElementException("Heap is empty");
+    }
+
+    return this.removeAt(0);
+  }
+
+  /**
+   * Replaces the element referenced by the handle with one that comes earlier
+   * (or at the same position) in the heap's order.
+   *
+   * @param handle  the handle of the element to be updated
+   * @param element the new element
+   * @throws IllegalArgumentException if the new element is null or comes after
+   *                                  the current one
+   * @throws NoSuchElementException   if the handle is no longer valid or
+   *                                  belongs to another heap
+   */
+  public void decreaseKey(Handle handle, T element) {
+    int index = this.position(handle);
+
+    if (element == null) {
+      throw new IllegalArgumentException("Element cannot be null");
+    }
+
+    if (this.comparator.compare(element, this.elementAt(index)) > 0) {
+      throw new IllegalArgumentException("New element comes after the current one");
+    }
+
+    this.setAt(index, element);
+    this.siftUp(index);
+  }
+
+  /**
+   * Replaces the element referenced by the handle, moving it up or down as
+   * needed.
+   *
+   * @param handle  the handle of the element to be updated
+   * @param element the new element
+   * @throws IllegalArgumentException if the new element is null
+   * @throws NoSuchElementException   if the handle is no longer valid or
+   *                                  belongs to another heap
+   */
+  public void update(Handle handle, T element) {
+    int index = this.position(handle);
+
+    if (element == null) {
+      throw new IllegalArgumentException("Element cannot be null");
+    }
+
+    this.setAt(index, element);
+    this.restore(index);
+  }
+
+  /**
+   * Removes the element referenced by the handle.
+   *
+   * @param handle the handle of the element to be removed
+   * @return the removed element
+   * @throws NoSuchElementException if the handle is no longer valid or
+   *                                belongs to another heap
+   */
+  public T remove(Handle handle) {
+    return this.removeAt(this.position(handle));
+  }
+
+  @Override
+  public void clear() {
+    if (this.handles != null) {
+      for (int i = 0; i < this.elements; i++) {
+        if (this.handles[i] != null) {
+          ((BinaryHeap<?>.Handle) this.handles[i]).index = -1;
+        }
+      }
+
+      Arrays.fill(this.handles, 0, this.elements, null);
+    }
+
+    super.clear();
+  }
+
+  /**
+   * Returns the comparator used to order this heap.
+   *
+   * @return the comparator of this heap
+   */
+  public Comparator<? super T> comparator() {
+    return this.comparator;
+  }
+
+  @Override
+  public String toString() {
+    return "BinaryHeap with " + elements + " elements";
+  }
+
+  @Override
+  public void ensureCapacity(int capacity) {
+    super.ensureCapacity(capacity);
+
+    if (this.handles != null && this.handles.length < this.array.length) {
+      this.handles = Arrays.copyOf(this.handles, this.array.length);
+    }
+  }
+
+  @Override
+  protected void swap(int i, int j) {
+    super.swap(i, j);
+
+    if (this.handles != null) {
+      Object tmp = this.handles[i];
+      this.handles[i] = this.handles[j];
+      this.handles[j] = tmp;
+      this.reindex(i);
+      this.reindex(j);
+    }
+  }
+
+  @Override
+  protected T removeAt(int index) {
+    int last = this.elements - 1;
+    T removed = super.removeAt(index);
+
+    if (this.handles != null) {
+      if (this.handles[last] != null) {
+        ((BinaryHeap<?>.Handle) this.handles[last]).index = -1;
+        this.handles[last] = null;
+      }
+    }
+
+    if (index != last) {
+      this.restore(index);
+    }
+
+    return removed;
+  }
+
+  /**
+   * Returns the current position of the element referenced by the handle.
+   *
+   * @param handle the handle to be resolved
+   * @return the position of the referenced element
+   * @throws NoSuchElementException if the handle is no longer valid or
+   *                                belongs to another heap
+   */
+  private int position(Handle handle) {
+    // a handle of another heap is never stored here, so the identity check
+    // rejects it once its index is known to be in range
+    if (handle == null || !handle.isValid() || handle.index >= this.elements || this.handles == null
+        || this.handles[handle.index] != handle) {
+      throw new NoSuchElementException("Element is no longer in the heap");
+    }
+
+    return handle.index;
+  }
+
+  /**
+   * Moves the element at the specified position up or down until the heap
+   * order holds again.
+   *
+   * @param index the position of the element
+   */
+  private void restore(int index) {
+    if (index > 0 && this.comparator.compare(this.elementAt(index), this.elementAt(parentIndex(index))) < 0) {
+      this.siftUp(index);
+      return;
+    }
+
+    this.siftDown(index);
+  }
+
+  /**
+   * Moves the element at the specified position towards the root while it
+   * comes before its parent.
+   *
+   * @param index the position of the element
+   */
+  private void siftUp(int index) {
+    T element = this.elementAt(index);
+    Object handle = this.handles != null ? this.handles[index] : null;
+
+    while (index > 0) {
+      int parent = parentIndex(index);
+
+      if (this.comparator.compare(element, this.elementAt(parent)) >= 0) {
+        break;
+      }
+
+      this.move(parent, index);
+      index = parent;
+    }
+
+    this.place(index, element, handle);
+  }
+
+  /**
+   * Moves the element at the specified position towards the leaves while one
+   * of its children comes before it.
+   *
+   * @param index the position of the element
+   */
+  private void siftDown(int index) {
+    T element = this.elementAt(index);
+    Object handle = this.handles != null ? this.handles[index] : null;
+    int half = this.elements >>> 1;
+
+    while (index < half) {
+      int child = leftIndex(index);
+      int right = child + 1;
+
+      if (right < this.elements && this.comparator.compare(this.elementAt(right), this.elementAt(child)) < 0) {
+        child = right;
+      }
+
+      if (this.comparator.compare(element, this.elementAt(child)) <= 0) {
+        break;
+      }
+
+      this.move(child, index);
+      index = child;
+    }
+
+    this.place(index, element, handle);
+  }
+
+  /**
+   * Copies the element and handle at one position into another one.
+   *
+   * @param from the source position
+   * @param to   the target position
+   */
+  private void move(int from, int to) {
+    this.array[to] = this.array[from];
+
+    if (this.handles != null) {
+      this.handles[to] = this.handles[from];
+      this.reindex(to);
+    }
+  }
+
+  /**
+   * Stores an element and its handle at the specified position.
+   *
+   * @param index   the target position
+   * @param element the element to be stored
+   * @param handle  the handle of the element, or null if it has none
+   */
+  private void place(int index, T element, Object handle) {
+    this.array[index] = element;
+
+    if (this.handles != null) {
+      this.handles[index] = handle;
+      this.reindex(index);
+    }
+  }
+
+  /**
+   * Updates the handle stored at the specified position to point to it.
+   *
+   * @param index the position of the handle
+   */
+  private void reindex(int index) {
+    if (this.handles[index] != null) {
+      ((BinaryHeap<?>.Handle) this.handles[index]).index = index;
+    }
+  }
+}
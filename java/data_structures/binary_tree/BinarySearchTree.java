@@ -1,30 +1,58 @@
 import collections.Collection;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * A Binary Search Tree (BST) implementation that extends a BinaryTree.
  * 
- * @param <T> the type of elements maintained by this tree, which must be
- *            comparable.
+ * Elements are ordered by a comparator. Trees built without one use the
+ * natural ordering, in which case the elements must be comparable. To order
+ * records by a primitive key without boxing, use a comparator such as
+ * {@link Comparator#comparingLong(java.util.function.ToLongFunction)}.
+ * 
+ * @param <T> the type of elements maintained by this tree.
  */
-public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
+public class BinarySearchTree<T> extends BinaryTree<T> {
 
   /**
-   * An iterator for the Binary Search Tree.
+   * An iterator for the Binary Search Tree. It walks the elements in order,
+   * optionally restricted to a range, descending only along the paths that
+   * reach elements inside it.
    */
   private class IteratorBST implements Iterator<T> {
     private Stack<Node> stack;
+    private T hi;
 
     /**
-     * Constructs an iterator for the BST.
+     * Constructs an iterator over all the elements of the BST.
      */
     public IteratorBST() {
       this.stack = new Stack<>();
+      this.pushLeftBranch(root);
+    }
+
+    /**
+     * Constructs an iterator over the elements of the BST between {@code lo}
+     * and {@code hi}, both inclusive.
+     * 
+     * @param lo the lower bound of the range.
+     * @param hi the upper bound of the range.
+     */
+    public IteratorBST(T lo, T hi) {
+      this.stack = new Stack<>();
+      this.hi = hi;
       Node currentNode = root;
 
+      // keep only the ancestors at or above lo; smaller ones are skipped
       while (currentNode != null) {
-        this.stack.push(currentNode);
-        currentNode = currentNode.leftChild;
+        if (comparator.compare(currentNode.element, lo) >= 0) {
+          this.stack.push(currentNode);
+          currentNode = currentNode.leftChild;
+        } else {
+          currentNode = currentNode.rightChild;
+        }
       }
     }
 
@@ -35,50 +63,92 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
      */
     @Override
     public boolean hasNext() {
-      return !this.stack.isEmpty();
+      if (this.stack.isEmpty()) {
+        return false;
+      }
+
+      return this.hi == null || comparator.compare(this.stack.peek().element, this.hi) <= 0;
     }
 
     /**
      * Returns the next element in the iteration.
      * 
      * @return the next element in the iteration.
+     * @throws NoSuchElementException if the iteration has no more elements.
      */
     @Override
     public T next() {
-      Node currentNode = this.stack.pop();
-      Node leftBranch = currentNode.leftChild;
-
-      if (currentNode.hasRight()) {
-        this.stack.push(currentNode.rightChild);
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
       }
 
-      while (leftBranch != null) {
-        this.stack.push(leftBranch);
-        leftBranch = leftBranch.leftChild;
-      }
+      Node currentNode = this.stack.pop();
+      this.pushLeftBranch(currentNode.rightChild);
 
       return currentNode.element;
     }
+
+    private void pushLeftBranch(Node node) {
+      while (node != null) {
+        this.stack.push(node);
+        node = node.leftChild;
+      }
+    }
   }
 
   protected Node lastAdded;
+  protected final Comparator<? super T> comparator;
 
   /**
-   * Constructs an empty Binary Search Tree.
+   * Constructs an empty Binary Search Tree ordered by the natural ordering of
+   * its elements.
    */
   public BinarySearchTree() {
-    super();
+    this(BinarySearchTree.<T>naturalOrder());
   }
 
   /**
-   * Constructs a Binary Search Tree containing the elements of the specified
-   * collection.
+   * Constructs a height-balanced Binary Search Tree containing the elements of
+   * the specified collection, ordered by their natural ordering.
    * 
    * @param collection the collection whose elements are to be placed into this
    *                   tree.
+   * @throws IllegalArgumentException if an element is null.
+   * @see #bulkLoad(Collection)
    */
   public BinarySearchTree(Collection<T> collection) {
-    super(collection);
+    this(collection, BinarySearchTree.<T>naturalOrder());
+  }
+
+  /**
+   * Constructs an empty Binary Search Tree ordered by the specified
+   * comparator.
+   * 
+   * @param comparator the comparator used to order the elements.
+   * @throws IllegalArgumentException if the comparator is null.
+   */
+  public BinarySearchTree(Comparator<? super T> comparator) {
+    super();
+    if (comparator == null) {
+      throw new IllegalArgumentException("Comparator cannot be null");
+    }
+
+    this.comparator = comparator;
+  }
+
+  /**
+   * Constructs a height-balanced Binary Search Tree containing the elements of
+   * the specified collection, ordered by the specified comparator.
+   * 
+   * @param collection the collection whose elements are to be placed into this
+   *                   tree.
+   * @param comparator the comparator used to order the elements.
+   * @throws IllegalArgumentException if the comparator or an element is null.
+   * @see #bulkLoad(Collection)
+   */
+  public BinarySearchTree(Collection<T> collection, Comparator<? super T> comparator) {
+    this(comparator);
+    this.bulkLoad(collection);
   }
 
   /**
@@ -89,26 +159,28 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
    * @param newNode     the new node to be added.
    */
   public void compareNodes(Node currentNode, Node newNode) {
-    int comparison = newNode.element.compareTo(currentNode.element);
+    while (true) {
+      int comparison = this.comparator.compare(newNode.element, currentNode.element);
 
-    if (comparison <= 0) {
-      if (!currentNode.hasLeft()) {
-        currentNode.leftChild = newNode;
+      if (comparison <= 0) {
+        if (!currentNode.hasLeft()) {
+          currentNode.leftChild = newNode;
+          newNode.parent = currentNode;
+          return;
+        }
+
+        currentNode = currentNode.leftChild;
+        continue;
+      }
+
+      if (!currentNode.hasRight()) {
+        currentNode.rightChild = newNode;
         newNode.parent = currentNode;
         return;
       }
 
-      this.compareNodes(currentNode.leftChild, newNode);
-      return;
+      currentNode = currentNode.rightChild;
     }
-
-    if (!currentNode.hasRight()) {
-      currentNode.rightChild = newNode;
-      newNode.parent = currentNode;
-      return;
-    }
-
-    this.compareNodes(currentNode.rightChild, newNode);
   }
 
   /**
@@ -152,7 +224,7 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
 
         Node parent = found.parent;
 
-        if (parent.hasLeft() && parent.leftChild.equals(found)) {
+        if (parent.hasLeft() && parent.leftChild == found) {
           parent.leftChild = null;
           return;
         }
@@ -172,7 +244,7 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
           return;
         }
 
-        if (parent.hasLeft() && parent.leftChild.equals(found)) {
+        if (parent.hasLeft() && parent.leftChild == found) {
           parent.leftChild = right;
           right.parent = parent;
           return;
@@ -195,7 +267,7 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
           return;
         }
 
-        if (parent.hasLeft() && parent.leftChild.equals(found)) {
+        if (parent.hasLeft() && parent.leftChild == found) {
           parent.leftChild = left;
           left.parent = parent;
           return;
@@ -212,6 +284,84 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
     }
   }
 
+  /**
+   * Replaces the contents of this tree with the elements of the specified
+   * collection, arranged in a height-balanced tree. The elements are sorted
+   * once, in linear time if they are already in order, and the tree is then
+   * built top-down by rooting every subtree at the middle of its range, so
+   * the whole build takes O(n) on sorted input and O(n log n) otherwise,
+   * instead of one descent per element.
+   * 
+   * @param collection the collection whose elements are to be placed into this
+   *                   tree.
+   * @throws IllegalArgumentException if an element is null.
+   */
+  protected void bulkLoad(Collection<T> collection) {
+    Object[] array = new Object[collection.getElements()];
+    int count = 0;
+
+    for (T element : collection) {
+      if (element == null) {
+        throw new IllegalArgumentException("Element cannot be null");
+      }
+      if (count == array.length) {
+        array = Arrays.copyOf(array, Math.max(16, count << 1));
+      }
+      array[count++] = element;
+    }
+
+    @SuppressWarnings("unchecked")
+    T[] sorted = (T[]) array;
+    MergeSort.adaptiveSort(sorted, 0, count, this.comparator);
+
+    // splitting at the middle puts the deepest nodes at depth floor(log2 n)
+    int maxDepth = count == 0 ? 0 : 31 - Integer.numberOfLeadingZeros(count);
+
+    this.root = this.buildBalanced(sorted, 0, count - 1, 0, maxDepth);
+    this.elements = count;
+    this.lastAdded = null;
+  }
+
+  /**
+   * Builds a height-balanced subtree holding the sorted elements between
+   * {@code lo} and {@code hi}, both inclusive.
+   * 
+   * @return the root of the subtree, or {@code null} if the range is empty.
+   */
+  private Node buildBalanced(T[] sorted, int lo, int hi, int depth, int maxDepth) {
+    if (lo > hi) {
+      return null;
+    }
+
+    int middle = (lo + hi) >>> 1;
+    Node node = this.newNode(sorted[middle]);
+
+    node.leftChild = this.buildBalanced(sorted, lo, middle - 1, depth + 1, maxDepth);
+    node.rightChild = this.buildBalanced(sorted, middle + 1, hi, depth + 1, maxDepth);
+
+    if (node.leftChild != null) {
+      node.leftChild.parent = node;
+    }
+    if (node.rightChild != null) {
+      node.rightChild.parent = node;
+    }
+
+    this.balancedNode(node, depth, maxDepth, hi - lo + 1);
+    return node;
+  }
+
+  /**
+   * Called by {@link #bulkLoad(Collection)} for every node once its subtree is
+   * built, so subclasses can set up the data they keep per node.
+   * 
+   * @param node     the node just built.
+   * @param depth    the depth of the node.
+   * @param maxDepth the depth of the deepest nodes of the tree.
+   * @param size     the number of nodes in the subtree rooted at the node.
+   */
+  protected void balancedNode(Node node, int depth, int maxDepth, int size) {
+  }
+
   /**
    * Returns the maximum node in the subtree rooted at the specified node.
    * 
@@ -219,11 +369,11 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
    * @return the maximum node in the subtree.
    */
   protected Node maxSubTree(Node node) {
-    if (!node.hasRight()) {
-      return node;
+    while (node.hasRight()) {
+      node = node.rightChild;
     }
 
-    return this.maxSubTree(node.rightChild);
+    return node;
   }
 
   /**
@@ -248,22 +398,17 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
    *         not found.
    */
   protected Node search(Node currentNode, T element) {
-    if (currentNode == null) {
-      return null;
-    }
+    while (currentNode != null) {
+      int comparison = this.comparator.compare(element, currentNode.element);
 
-    int comparison = element.compareTo(currentNode.element);
-
-    if (comparison == 0) {
-      return currentNode;
-    }
+      if (comparison == 0) {
+        return currentNode;
+      }
 
-    if (comparison == -1) {
-      return this.search(currentNode.leftChild, element);
+      currentNode = comparison < 0 ? currentNode.leftChild : currentNode.rightChild;
     }
 
-    return this.search(currentNode.rightChild, element);
-
+    return null;
   }
 
   /**
@@ -276,6 +421,150 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
     return new IteratorBST();
   }
 
+  /**
+   * Returns an iterator over the elements of this tree between {@code lo} and
+   * {@code hi}, both inclusive, in ascending order. The iterator is lazy: it
+   * descends straight to {@code lo} and stops at {@code hi}, so a scan costs
+   * O(h + k) for k elements in the range.
+   * 
+   * @param lo the lower bound of the range.
+   * @param hi the upper bound of the range.
+   * @return an iterator over the elements in the range.
+   * @throws IllegalArgumentException if a bound is null.
+   */
+  public Iterator<T> range(T lo, T hi) {
+    if (lo == null || hi == null) {
+      throw new IllegalArgumentException("Bounds cannot be null");
+    }
+
+    return new IteratorBST(lo, hi);
+  }
+
+  /**
+   * Returns the smallest element in this tree.
+   * 
+   * @return the smallest element.
+   * @throws NoSuchElementException if the tree is empty.
+   */
+  public T first() {
+    if (this.root == null) {
+      throw new NoSuchElementException("The tree is empty");
+    }
+
+    Node currentNode = this.root;
+    while (currentNode.hasLeft()) {
+      currentNode = currentNode.leftChild;
+    }
+
+    return currentNode.element;
+  }
+
+  /**
+   * Returns the largest element in this tree.
+   * 
+   * @return the largest element.
+   * @throws NoSuchElementException if the tree is empty.
+   */
+  public T last() {
+    if (this.root == null) {
+      throw new NoSuchElementException("The tree is empty");
+    }
+
+    return this.maxSubTree(this.root).element;
+  }
+
+  /**
+   * Returns the largest element in this tree less than or equal to the
+   * specified element.
+   * 
+   * @param element the element to compare against.
+   * @return the greatest element not above the element, or {@code null} if
+   *         there is none.
+   */
+  public T floor(T element) {
+    return this.below(element, true);
+  }
+
+  /**
+   * Returns the largest element in this tree strictly less than the specified
+   * element.
+   * 
+   * @param element the element to compare against.
+   * @return the greatest element below the element, or {@code null} if there
+   *         is none.
+   */
+  public T lower(T element) {
+    return this.below(element, false);
+  }
+
+  /**
+   * Returns the smallest element in this tree greater than or equal to the
+   * specified element.
+   * 
+   * @param element the element to compare against.
+   * @return the least element not below the element, or {@code null} if there
+   *         is none.
+   */
+  public T ceiling(T element) {
+    return this.above(element, true);
+  }
+
+  /**
+   * Returns the smallest element in this tree strictly greater than the
+   * specified element.
+   * 
+   * @param element the element to compare against.
+   * @return the least element above the element, or {@code null} if there is
+   *         none.
+   */
+  public T higher(T element) {
+    return this.above(element, false);
+  }
+
+  /**
+   * Returns the greatest element less than (or, if {@code inclusive}, equal
+   * to) the specified element, found in a single descent.
+   */
+  private T below(T element, boolean inclusive) {
+    T candidate = null;
+    Node currentNode = this.root;
+
+    while (currentNode != null) {
+      int comparison = this.comparator.compare(currentNode.element, element);
+
+      if (comparison < 0 || (comparison == 0 && inclusive)) {
+        candidate = currentNode.element;
+        currentNode = currentNode.rightChild;
+      } else {
+        currentNode = currentNode.leftChild;
+      }
+    }
+
+    return candidate;
+  }
+
+  /**
+   * Returns the least element greater than (or, if {@code inclusive}, equal
+   * to) the specified element, found in a single descent.
+   */
+  private T above(T element, boolean inclusive) {
+    T candidate = null;
+    Node currentNode = this.root;
+
+    while (currentNode != null) {
+      int comparison = this.comparator.compare(currentNode.element, element);
+
+      if (comparison > 0 || (comparison == 0 && inclusive)) {
+        candidate = currentNode.element;
+        currentNode = currentNode.leftChild;
+      } else {
+        currentNode = currentNode.rightChild;
+      }
+    }
+
+    return candidate;
+  }
+
   /**
    * Swaps the removable node with the maximum node in its left subtree.
    * 
@@ -302,7 +591,7 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
 
     if (parent != null) {
 
-      if (parent.hasLeft() && parent.leftChild.equals(node)) {
+      if (parent.hasLeft() && parent.leftChild == node) {
         parent.leftChild = child;
 
         if (child != null) {
@@ -318,9 +607,33 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
       }
       return;
     }
+
+    if (child != null) {
+      child.parent = null;
+    }
     this.root = child;
   }
 
+  /**
+   * Returns the comparator used to order this tree.
+   * 
+   * @return the comparator of this tree.
+   */
+  public Comparator<? super T> comparator() {
+    return this.comparator;
+  }
+
+  /**
+   * Returns the natural ordering comparator, which fails with a
+   * {@link ClassCastException} on elements that are not comparable.
+   * 
+   * @return the natural ordering comparator.
+   */
+  @SuppressWarnings("unchecked")
+  protected static <T> Comparator<? super T> naturalOrder() {
+    return (Comparator<? super T>) Comparator.naturalOrder();
+  }
+
   /**
    * Returns the last added node in this tree.
    * 
@@ -342,7 +655,7 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
       Node originalParent = node.hasParent() ? (Node) node.parent() : null;
 
       if (originalParent != null) {
-        isLeftChild = (originalParent.hasLeft() && originalParent.leftChild.equals(node))
+        isLeftChild = (originalParent.hasLeft() && originalParent.leftChild == node)
             ? true
             : false;
       }
@@ -389,7 +702,7 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
       Node originalParent = node.hasParent() ? (Node) node.parent() : null;
 
       if (originalParent != null) {
-        isLeftChild = (originalParent.hasLeft() && originalParent.leftChild.equals(node))
+        isLeftChild = (originalParent.hasLeft() && originalParent.leftChild == node)
             ? true
             : false;
       }
@@ -446,9 +759,21 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
       return;
     }
 
-    action.current(node);
-    this.dfsPreOrder(action, node.leftChild);
-    this.dfsPreOrder(action, node.rightChild);
+    Stack<Node> stack = new Stack<>();
+    stack.push(node);
+
+    while (!stack.isEmpty()) {
+      Node currentNode = stack.pop();
+      action.current(currentNode);
+
+      if (currentNode.hasRight()) {
+        stack.push(currentNode.rightChild);
+      }
+
+      if (currentNode.hasLeft()) {
+        stack.push(currentNode.leftChild);
+      }
+    }
   }
 
   /**
@@ -469,13 +794,19 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
    * @param node   the root of the subtree.
    */
   public void dfsInOrder(ActionNodeBinaryTree<T> action, Node node) {
-    if (node == null) {
-      return;
-    }
+    Stack<Node> stack = new Stack<>();
+    Node currentNode = node;
+
+    while (currentNode != null || !stack.isEmpty()) {
+      while (currentNode != null) {
+        stack.push(currentNode);
+        currentNode = currentNode.leftChild;
+      }
 
-    this.dfsInOrder(action, node.leftChild);
-    action.current(node);
-    this.dfsInOrder(action, node.rightChild);
+      currentNode = stack.pop();
+      action.current(currentNode);
+      currentNode = currentNode.rightChild;
+    }
   }
 
   /**
@@ -496,12 +827,27 @@ public class BinarySearchTree<T extends Comparable<T>> extends BinaryTree<T> {
    * @param node   the root of the subtree.
    */
   public void dfsPostOrder(ActionNodeBinaryTree<T> action, Node node) {
-    if (node == null) {
-      return;
-    }
+    Stack<Node> stack = new Stack<>();
+    Node currentNode = node;
+    Node lastVisited = null;
 
-    this.dfsPostOrder(action, node.leftChild);
-    this.dfsPostOrder(action, node.rightChild);
-    action.current(node);
+    while (currentNode != null || !stack.isEmpty()) {
+      if (currentNode != null) {
+        stack.push(currentNode);
+        currentNode = currentNode.leftChild;
+        continue;
+      }
+
+      Node top = stack.peek();
+
+      // descend into the right subtree unless we are coming back from it
+      if (top.hasRight() && top.rightChild != lastVisited) {
+        currentNode = top.rightChild;
+        continue;
+      }
+
+      action.current(top);
+      lastVisited = stack.pop();
+    }
   }
 }
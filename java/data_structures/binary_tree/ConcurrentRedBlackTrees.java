@@ -0,0 +1,532 @@
+import collections.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe Red-Black Tree for read-mostly workloads.
+ *
+ * Writers serialize among themselves on the write mode of a
+ * {@link StampedLock}. {@link #get(Object)}, {@link #search(Object)},
+ * {@link #contains(Object)} and iteration first run as optimistic reads:
+ * they take no lock at all, walk the tree and then validate that no writer ran
+ * in the meantime, retrying under the shared read lock only if one did.
+ * Readers therefore never block each other and, while there are no writes,
+ * never write to shared memory. The remaining queries simply hold the read
+ * lock.
+ *
+ * An optimistic read may observe the tree halfway through a rotation, so its
+ * descents are bounded by the greatest height a valid tree can have and any
+ * exception thrown from a read that fails validation is discarded.
+ *
+ * Iterators are weakly consistent: they return the elements in batches read
+ * atomically, resuming after the last element returned, so they never throw
+ * {@link java.util.ConcurrentModificationException} and reflect some of the
+ * modifications made after their creation. Actions passed to the
+ * depth-first traversals run under the read lock and must not modify the
+ * tree.
+ *
+ * @param <T> the type of elements maintained by this tree.
+ */
+public class ConcurrentRedBlackTrees<T> extends RedBlackTrees<T> {
+
+  // a red-black tree of 2^31 - 1 nodes is at most 62 levels deep
+  private static final int MAX_DEPTH = 64;
+  private static final int BATCH_SIZE = 64;
+
+  /**
+   * A weakly consistent iterator over the elements of the tree between two
+   * optional bounds, both inclusive, which reads the elements in batches.
+   */
+  private class IteratorConcurrentRBT implements Iterator<T> {
+    private final Object[] batch;
+    private final T hi;
+    private T from;
+    private int skip;
+    private int index;
+    private int count;
+    private boolean exhausted;
+
+    /**
+     * Constructs an iterator over the elements between {@code lo} and
+     * {@code hi}, either of which may be null for an unbounded side.
+     *
+     * @param lo the lower bound of the range.
+     * @param hi the upper bound of the range.
+     */
+    public IteratorConcurrentRBT(T lo, T hi) {
+      this.batch = new Object[BATCH_SIZE];
+      this.hi = hi;
+      this.from = lo;
+      this.skip = 0;
+      this.index = 0;
+      this.count = 0;
+      this.exhausted = false;
+    }
+
+    /**
+     * Returns {@code true} if the iteration has more elements.
+     *
+     * @return {@code true} if the iteration has more elements.
+     */
+    @Override
+    public boolean hasNext() {
+      if (this.index == this.count && !this.exhausted) {
+        this.count = optimisticRead(this::fill);
+        this.index = 0;
+        this.exhausted = this.count < BATCH_SIZE;
+
+        if (this.count > 0) {
+          this.resumeAfter(this.element(this.count - 1));
+        }
+      }
+
+      return this.index < this.count;
+    }
+
+    /**
+     * Returns the next element in the iteration.
+     *
+     * @return the next element in the iteration.
+     * @throws NoSuchElementException if the iteration has no more elements.
+     */
+    @Override
+    public T next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return this.element(this.index++);
+    }
+
+    /**
+     * Makes the next batch start after the specified element, the last one
+     * returned. Equal elements are resumed from their first copy, skipping the
+     * copies already returned, so a run of duplicates split across two
+     * batches is neither lost nor repeated.
+     *
+     * @param last the last element of the batch.
+     */
+    private void resumeAfter(T last) {
+      int copies = 0;
+      while (copies < this.count && comparator.compare(this.element(this.count - 1 - copies), last) == 0) {
+        copies++;
+      }
+
+      boolean sameRun = this.from != null && comparator.compare(this.from, last) == 0;
+      this.skip = sameRun ? this.skip + copies : copies;
+      this.from = last;
+    }
+
+    /**
+     * Copies into the batch, in order, the elements after the position the
+     * iteration has reached, up to the upper bound. Every descent is bounded,
+     * so a torn view of the tree cannot make it loop forever.
+     *
+     * @return the number of elements copied.
+     */
+    private Integer fill() {
+      Stack<Node> stack = new Stack<>();
+      Node currentNode = root;
+
+      for (int depth = 0; currentNode != null && depth < MAX_DEPTH; depth++) {
+        if (this.from == null || comparator.compare(currentNode.element, this.from) >= 0) {
+          stack.push(currentNode);
+          currentNode = currentNode.leftChild;
+        } else {
+          currentNode = currentNode.rightChild;
+        }
+      }
+
+      int filled = 0;
+      int skipped = 0;
+      while (filled < BATCH_SIZE && !stack.isEmpty()) {
+        Node node = stack.pop();
+
+        if (this.hi != null && comparator.compare(node.element, this.hi) > 0) {
+          break;
+        }
+        if (skipped < this.skip && comparator.compare(node.element, this.from) == 0) {
+          skipped++;
+        } else {
+          this.batch[filled++] = node.element;
+        }
+
+        currentNode = node.rightChild;
+        for (int depth = 0; currentNode != null && depth < MAX_DEPTH; depth++) {
+          stack.push(currentNode);
+          currentNode = currentNode.leftChild;
+        }
+      }
+
+      return filled;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T element(int position) {
+      return (T) this.batch[position];
+    }
+  }
+
+  private final StampedLock lock = new StampedLock();
+
+  // only ever set to a thread by that same thread, which then always reads
+  // back its own value, so no other thread can mistake itself for the writer
+  private Thread writer;
+
+  /**
+   * Constructs an empty tree ordered by the natural ordering of its elements.
+   */
+  public ConcurrentRedBlackTrees() {
+    this(BinarySearchTree.<T>naturalOrder());
+  }
+
+  /**
+   * Constructs a height-balanced tree containing the elements of the
+   * specified collection, ordered by their natural ordering.
+   *
+   * @param collection the collection whose elements are to be placed into this
+   *                   tree.
+   */
+  public ConcurrentRedBlackTrees(Collection<T> collection) {
+    this(collection, BinarySearchTree.<T>naturalOrder());
+  }
+
+  /**
+   * Constructs an empty tree ordered by the specified comparator.
+   *
+   * @param comparator the comparator used to order the elements.
+   * @throws IllegalArgumentException if the comparator is null.
+   */
+  public ConcurrentRedBlackTrees(Comparator<? super T> comparator) {
+    super(comparator);
+  }
+
+  /**
+   * Constructs a height-balanced tree containing the elements of the
+   * specified collection, ordered by the specified comparator.
+   *
+   * @param collection the collection whose elements are to be placed into this
+   *                   tree.
+   * @param comparator the comparator used to order the elements.
+   * @throws IllegalArgumentException if the comparator or an element is null.
+   */
+  public ConcurrentRedBlackTrees(Collection<T> collection, Comparator<? super T> comparator) {
+    this(comparator);
+    // the tree is not shared yet, so it is built without locking
+    this.bulkLoad(collection);
+  }
+
+  @Override
+  public void add(T element) {
+    this.write(() -> super.add(element));
+  }
+
+  @Override
+  public void remove(T element) {
+    this.write(() -> super.remove(element));
+  }
+
+  @Override
+  public void clear() {
+    this.write(() -> super.clear());
+  }
+
+  @Override
+  public void compareNodes(Node currentNode, Node newNode) {
+    this.write(() -> super.compareNodes(currentNode, newNode));
+  }
+
+  @Override
+  public void rotateLeft(NodeBinaryTree<T> node) {
+    this.write(() -> super.rotateLeft(node));
+  }
+
+  @Override
+  public void rotateRight(NodeBinaryTree<T> node) {
+    this.write(() -> super.rotateRight(node));
+  }
+
+  /**
+   * Searches for the specified element in this tree with an optimistic read.
+   *
+   * The returned node is a live node of the tree, not a snapshot. Only its
+   * {@code get()} is safe to call without external locking, and even that may
+   * reflect a later removal; walking it with {@code parent()},
+   * {@code leftChild()}, {@code rightChild()}, {@code height()} or
+   * {@code depth()} races with concurrent writers. Use {@link #get(Object)} or
+   * {@link #contains(Object)} to look an element up.
+   *
+   * @param element the element to be searched for.
+   * @return the node containing the element, or {@code null} if the element is
+   *         not found.
+   */
+  @Override
+  public NodeBinaryTree<T> search(T element) {
+    return this.optimisticRead(() -> this.find(element));
+  }
+
+  /**
+   * Returns the element of this tree equal to the specified element, read
+   * atomically with an optimistic read.
+   *
+   * @param element the element to be searched for.
+   * @return the element in the tree, or {@code null} if the element is not
+   *         found.
+   */
+  public T get(T element) {
+    return this.optimisticRead(() -> {
+      Node node = this.find(element);
+      return node == null ? null : node.element;
+    });
+  }
+
+  /**
+   * Checks if this tree contains the specified element with an optimistic
+   * read.
+   *
+   * @param element the element to be searched for.
+   * @return true if the tree contains the element, false otherwise.
+   */
+  @Override
+  public boolean contains(T element) {
+    return this.optimisticRead(() -> this.find(element) != null);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.optimisticRead(() -> this.root == null);
+  }
+
+  @Override
+  public int getElements() {
+    return this.optimisticRead(() -> this.elements);
+  }
+
+  /**
+   * Returns a weakly consistent iterator over the elements in this tree.
+   *
+   * @return an iterator over the elements in this tree.
+   */
+  @Override
+  public Iterator<T> iterator() {
+    return new IteratorConcurrentRBT(null, null);
+  }
+
+  /**
+   * Returns a weakly consistent iterator over the elements of this tree
+   * between {@code lo} and {@code hi}, both inclusive, in ascending order.
+   *
+   * @param lo the lower bound of the range.
+   * @param hi the upper bound of the range.
+   * @return an iterator over the elements in the range.
+   * @throws IllegalArgumentException if a bound is null.
+   */
+  @Override
+  public Iterator<T> range(T lo, T hi) {
+    if (lo == null || hi == null) {
+      throw new IllegalArgumentException("Bounds cannot be null");
+    }
+
+    return new IteratorConcurrentRBT(lo, hi);
+  }
+
+  @Override
+  public T first() {
+    return this.sharedRead(() -> super.first());
+  }
+
+  @Override
+  public T last() {
+    return this.sharedRead(() -> super.last());
+  }
+
+  @Override
+  public T floor(T element) {
+    return this.sharedRead(() -> super.floor(element));
+  }
+
+  @Override
+  public T lower(T element) {
+    return this.sharedRead(() -> super.lower(element));
+  }
+
+  @Override
+  public T ceiling(T element) {
+    return this.sharedRead(() -> super.ceiling(element));
+  }
+
+  @Override
+  public T higher(T element) {
+    return this.sharedRead(() -> super.higher(element));
+  }
+
+  @Override
+  public int rank(T element) {
+    return this.sharedRead(() -> super.rank(element));
+  }
+
+  @Override
+  public T select(int index) {
+    return this.sharedRead(() -> super.select(index));
+  }
+
+  @Override
+  public int countInRange(T lo, T hi) {
+    return this.sharedRead(() -> super.countInRange(lo, hi));
+  }
+
+  /**
+   * Returns the root node of this tree. Like the nodes returned by
+   * {@link #search(Object)}, it is a live node: only its {@code get()} is safe
+   * to call without external locking.
+   *
+   * @return the root node, or {@code null} if the tree is empty.
+   */
+  @Override
+  public NodeBinaryTree<T> root() {
+    return this.sharedRead(() -> super.root());
+  }
+
+  @Override
+  public int height() {
+    return this.sharedRead(() -> super.height());
+  }
+
+  @Override
+  public void dfsPreOrder(ActionNodeBinaryTree<T> action) {
+    this.sharedRead(() -> {
+      super.dfsPreOrder(action, this.root);
+      return null;
+    });
+  }
+
+  @Override
+  public void dfsPreOrder(ActionNodeBinaryTree<T> action, Node node) {
+    this.sharedRead(() -> {
+      super.dfsPreOrder(action, node);
+      return null;
+    });
+  }
+
+  @Override
+  public void dfsInOrder(ActionNodeBinaryTree<T> action) {
+    this.sharedRead(() -> {
+      super.dfsInOrder(action, this.root);
+      return null;
+    });
+  }
+
+  @Override
+  public void dfsInOrder(ActionNodeBinaryTree<T> action, Node node) {
+    this.sharedRead(() -> {
+      super.dfsInOrder(action, node);
+      return null;
+    });
+  }
+
+  @Override
+  public void dfsPostOrder(ActionNodeBinaryTree<T> action) {
+    this.sharedRead(() -> {
+      super.dfsPostOrder(action, this.root);
+      return null;
+    });
+  }
+
+  @Override
+  public void dfsPostOrder(ActionNodeBinaryTree<T> action, Node node) {
+    this.sharedRead(() -> {
+      super.dfsPostOrder(action, node);
+      return null;
+    });
+  }
+
+  /**
+   * Looks up the node of the specified element in a descent bounded by the
+   * greatest height of a valid tree.
+   */
+  private Node find(T element) {
+    Node currentNode = this.root;
+
+    for (int depth = 0; currentNode != null && depth < MAX_DEPTH; depth++) {
+      int comparison = this.comparator.compare(element, currentNode.element);
+
+      if (comparison == 0) {
+        return currentNode;
+      }
+
+      currentNode = comparison < 0 ? currentNode.leftChild : currentNode.rightChild;
+    }
+
+    return null;
+  }
+
+  /**
+   * Runs the reader without locking and returns its result if no writer ran
+   * meanwhile, otherwise runs it again under the read lock. The reader must
+   * tolerate a torn view of the tree and terminate regardless.
+   */
+  private <R> R optimisticRead(Supplier<R> reader) {
+    if (this.writer == Thread.currentThread()) {
+      return reader.get();
+    }
+
+    long stamp = this.lock.tryOptimisticRead();
+
+    if (stamp != 0L) {
+      try {
+        R result = reader.get();
+
+        if (this.lock.validate(stamp)) {
+          return result;
+        }
+      } catch (RuntimeException e) {
+        // only an exception thrown from a consistent view is genuine
+        if (this.lock.validate(stamp)) {
+          throw e;
+        }
+      }
+    }
+
+    return this.sharedRead(reader);
+  }
+
+  /**
+   * Runs the reader under the read lock, unless the calling thread is already
+   * writing.
+   */
+  private <R> R sharedRead(Supplier<R> reader) {
+    if (this.writer == Thread.currentThread()) {
+      return reader.get();
+    }
+
+    long stamp = this.lock.readLock();
+    try {
+      return reader.get();
+    } finally {
+      this.lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Runs the modification under the write lock. The lock is not reentrant,
+   * so the calls the modification makes back into this tree run directly.
+   */
+  private void write(Runnable modification) {
+    if (this.writer == Thread.currentThread()) {
+      modification.run();
+      return;
+    }
+
+    long stamp = this.lock.writeLock();
+    this.writer = Thread.currentThread();
+    try {
+      modification.run();
+    } finally {
+      this.writer = null;
+      this.lock.unlockWrite(stamp);
+    }
+  }
+}
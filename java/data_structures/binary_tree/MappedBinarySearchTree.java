@@ -0,0 +1,526 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import collections.DirectBuffers;
+import collections.RecordCodec;
+
+/**
+ * A read-only Binary Search Tree served straight from a snapshot file mapped
+ * into memory.
+ *
+ * {@link #write(BinarySearchTree, RecordCodec, Path)} stores the elements of a
+ * tree as fixed-width records laid out as a complete binary tree in
+ * breadth-first order: the record at index {@code i} has its children at
+ * {@code 2i + 1} and {@code 2i + 2}, as in {@link ArrayCompleteBinaryTree},
+ * and an in-order walk of those indices visits the elements sorted. No
+ * pointers are stored, and the top levels that every search goes through sit
+ * together at the start of the file.
+ *
+ * {@link #open(Path, RecordCodec)} only reads the header and maps the file, so
+ * it takes the same time whatever the size of the snapshot. Searches and
+ * iteration decode just the records they visit, and the operating system
+ * pages the file in on demand and may share it between processes.
+ *
+ * The snapshot stays mapped until {@link #close()} is called, which unmaps it
+ * at once; any other operation then throws {@link IllegalStateException}.
+ *
+ * Reads take no lock, so any number of threads may search and iterate the
+ * same snapshot. They must all be done with it, iterators included, before
+ * it is closed: a thread still reading while {@link #close()} runs touches
+ * memory that is no longer mapped, which can crash the virtual machine
+ * instead of throwing an exception.
+ *
+ * @param <T> the type of elements maintained by this tree.
+ */
+public class MappedBinarySearchTree<T> implements Iterable<T>, AutoCloseable {
+
+  private static final int MAGIC = 0x42535453;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 32;
+  private static final long REGION_BYTES = 1L << 30;
+
+  /**
+   * An iterator walking the implicit tree in order, between two optional
+   * bounds, both inclusive.
+   */
+  private class IteratorMappedBST implements Iterator<T> {
+    private final T hi;
+    private long index;
+    private T next;
+
+    /**
+     * Constructs an iterator over the elements between {@code lo} and
+     * {@code hi}, either of which may be null for an unbounded side.
+     *
+     * @param lo the lower bound of the range.
+     * @param hi the upper bound of the range.
+     */
+    public IteratorMappedBST(T lo, T hi) {
+      this.hi = hi;
+      this.index = lo == null ? leftmost(0, count) : lowerBound(lo);
+      this.next = null;
+    }
+
+    /**
+     * Returns {@code true} if the iteration has more elements.
+     *
+     * @return {@code true} if the iteration has more elements.
+     */
+    @Override
+    public boolean hasNext() {
+      if (this.next == null && this.index >= 0) {
+        ensureOpen();
+        T element = elementAt(this.index);
+
+        if (this.hi != null && comparator.compare(element, this.hi) > 0) {
+          this.index = -1;
+        } else {
+          this.next = element;
+        }
+      }
+
+      return this.next != null;
+    }
+
+    /**
+     * Returns the next element in the iteration.
+     *
+     * @return the next element in the iteration.
+     * @throws NoSuchElementException if the iteration has no more elements.
+     */
+    @Override
+    public T next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      T element = this.next;
+      this.next = null;
+      this.index = successor(this.index, count);
+
+      return element;
+    }
+  }
+
+  private final RecordCodec<T> codec;
+  private final Comparator<? super T> comparator;
+  private final int recordSize;
+  private final int regionShift;
+  private final long regionMask;
+  private final long count;
+
+  private MappedByteBuffer[] regions;
+
+  private MappedBinarySearchTree(RecordCodec<T> codec, Comparator<? super T> comparator,
+      MappedByteBuffer[] regions, int regionShift, long count) {
+    this.codec = codec;
+    this.comparator = comparator;
+    this.recordSize = codec.recordSize();
+    this.regionShift = regionShift;
+    this.regionMask = (1L << regionShift) - 1;
+    this.count = count;
+    this.regions = regions;
+  }
+
+  /**
+   * Writes a snapshot of the specified tree to the specified file, replacing
+   * it if it exists. The snapshot is written to a uniquely named temporary
+   * file next to it and atomically moved into place once it is complete, so
+   * the file never holds a partial snapshot and the temporary file is deleted
+   * if writing fails. The file gets the permissions of a new temporary file,
+   * which on POSIX systems make it readable by its owner only.
+   *
+   * @param <T>   the type of elements in the tree.
+   * @param tree  the tree to be written, which must not be modified meanwhile.
+   * @param codec the codec used to serialize the elements.
+   * @param path  the file receiving the snapshot.
+   * @throws IOException              if the file cannot be written.
+   * @throws IllegalArgumentException if the codec is null or its record size
+   *                                  is not positive.
+   * @throws IllegalStateException    if the tree is modified while it is being
+   *                                  written.
+   */
+  public static <T> void write(BinarySearchTree<T> tree, RecordCodec<T> codec, Path path) throws IOException {
+    int recordSize = recordSizeOf(codec);
+    int regionShift = regionShift(recordSize);
+    long regionMask = (1L << regionShift) - 1;
+    long count = tree.getElements();
+    // a uniquely named file, so concurrent writers never share a partial one
+    Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(recordSize).putInt(0).putLong(count).putLong(0).flip();
+        while (header.hasRemaining()) {
+          channel.write(header, header.position());
+        }
+
+        MappedByteBuffer[] regions = map(channel, FileChannel.MapMode.READ_WRITE, recordSize, regionShift, count);
+
+        try {
+          // the tree iterates in order, so its elements fill the implicit tree
+          // in the same order as an in-order walk of the indices
+          long index = leftmost(0, count);
+          long written = 0;
+          for (T element : tree) {
+            if (written == count) {
+              break;
+            }
+            codec.encode(element, regions[(int) (index >>> regionShift)], (int) (index & regionMask) * recordSize);
+            index = successor(index, count);
+            written++;
+          }
+
+          if (written != count || tree.getElements() != count) {
+            throw new IllegalStateException("Tree was modified while writing the snapshot");
+          }
+
+          for (MappedByteBuffer region : regions) {
+            region.force();
+          }
+        } finally {
+          unmap(regions);
+        }
+        channel.force(true);
+      }
+
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      try {
+        Files.deleteIfExists(temporary);
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Opens the snapshot stored in the specified file, whose elements are
+   * ordered by their natural ordering.
+   *
+   * @param <T>   the type of elements in the snapshot.
+   * @param path  the file holding the snapshot.
+   * @param codec the codec the snapshot was written with.
+   * @return a read-only tree over the snapshot.
+   * @throws IOException              if the file cannot be read or does not
+   *                                  hold a valid snapshot.
+   * @throws IllegalArgumentException if the codec is null or does not match
+   *                                  the record size of the snapshot.
+   */
+  public static <T> MappedBinarySearchTree<T> open(Path path, RecordCodec<T> codec) throws IOException {
+    return MappedBinarySearchTree.open(path, codec, BinarySearchTree.<T>naturalOrder());
+  }
+
+  /**
+   * Opens the snapshot stored in the specified file, whose elements are
+   * ordered by the specified comparator, which must be the one of the tree the
+   * snapshot was taken from.
+   *
+   * @param <T>        the type of elements in the snapshot.
+   * @param path       the file holding the snapshot.
+   * @param codec      the codec the snapshot was written with.
+   * @param comparator the comparator used to order the elements.
+   * @return a read-only tree over the snapshot.
+   * @throws IOException              if the file cannot be read or does not
+   *                                  hold a valid snapshot.
+   * @throws IllegalArgumentException if the codec or the comparator is null,
+   *                                  or the codec does not match the record
+   *                                  size of the snapshot.
+   */
+  public static <T> MappedBinarySearchTree<T> open(Path path, RecordCodec<T> codec, Comparator<? super T> comparator)
+      throws IOException {
+    if (comparator == null) {
+      throw new IllegalArgumentException("Comparator cannot be null");
+    }
+    int recordSize = recordSizeOf(codec);
+    int regionShift = regionShift(recordSize);
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0) {
+          break;
+        }
+      }
+      header.flip();
+
+      if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+        throw new IOException("Not a tree snapshot: " + path);
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported snapshot version " + version + ": " + path);
+      }
+      int storedSize = header.getInt();
+      if (storedSize != recordSize) {
+        throw new IllegalArgumentException(
+            "Snapshot records are " + storedSize + " bytes but the codec uses " + recordSize);
+      }
+      header.getInt();
+      long count = header.getLong();
+      if (count < 0 || channel.size() < HEADER_BYTES + count * recordSize) {
+        throw new IOException("Truncated tree snapshot: " + path);
+      }
+
+      // the mappings stay valid once the channel is closed
+      MappedByteBuffer[] regions = map(channel, FileChannel.MapMode.READ_ONLY, recordSize, regionShift, count);
+      return new MappedBinarySearchTree<>(codec, comparator, regions, regionShift, count);
+    }
+  }
+
+  /**
+   * Searches for the specified element in the snapshot.
+   *
+   * @param element the element to be searched.
+   * @return the stored element equal to the specified one, or {@code null} if
+   *         there is none.
+   * @throws IllegalStateException if the snapshot is closed.
+   */
+  public T search(T element) {
+    this.ensureOpen();
+    long index = 0;
+
+    while (index < this.count) {
+      T current = this.elementAt(index);
+      int comparison = this.comparator.compare(element, current);
+
+      if (comparison == 0) {
+        return current;
+      }
+      index = comparison < 0 ? 2 * index + 1 : 2 * index + 2;
+    }
+
+    return null;
+  }
+
+  /**
+   * Checks if the snapshot contains the specified element.
+   *
+   * @param element the element to be searched.
+   * @return true if the snapshot contains the element, false otherwise.
+   * @throws IllegalStateException if the snapshot is closed.
+   */
+  public boolean contains(T element) {
+    return this.search(element) != null;
+  }
+
+  /**
+   * Returns an iterator over the elements of the snapshot in ascending order.
+   *
+   * @return an iterator over the elements of the snapshot.
+   * @throws IllegalStateException if the snapshot is closed.
+   */
+  @Override
+  public Iterator<T> iterator() {
+    this.ensureOpen();
+    return new IteratorMappedBST(null, null);
+  }
+
+  /**
+   * Returns an iterator over the elements of the snapshot between {@code lo}
+   * and {@code hi}, both inclusive, in ascending order.
+   *
+   * @param lo the lower bound of the range.
+   * @param hi the upper bound of the range.
+   * @return an iterator over the elements in the range.
+   * @throws IllegalArgumentException if either bound is null.
+   * @throws IllegalStateException    if the snapshot is closed.
+   */
+  public Iterator<T> range(T lo, T hi) {
+    if (lo == null || hi == null) {
+      throw new IllegalArgumentException("Bounds cannot be null");
+    }
+    this.ensureOpen();
+
+    return new IteratorMappedBST(lo, hi);
+  }
+
+  /**
+   * Returns the smallest element of the snapshot.
+   *
+   * @return the smallest element.
+   * @throws NoSuchElementException if the snapshot is empty.
+   * @throws IllegalStateException  if the snapshot is closed.
+   */
+  public T first() {
+    this.ensureOpen();
+
+    if (this.count == 0) {
+      throw new NoSuchElementException("Tree is empty");
+    }
+    return this.elementAt(leftmost(0, this.count));
+  }
+
+  /**
+   * Returns the largest element of the snapshot.
+   *
+   * @return the largest element.
+   * @throws NoSuchElementException if the snapshot is empty.
+   * @throws IllegalStateException  if the snapshot is closed.
+   */
+  public T last() {
+    this.ensureOpen();
+
+    if (this.count == 0) {
+      throw new NoSuchElementException("Tree is empty");
+    }
+
+    long index = 0;
+    while (2 * index + 2 < this.count) {
+      index = 2 * index + 2;
+    }
+    return this.elementAt(index);
+  }
+
+  /**
+   * Checks if the snapshot is empty.
+   *
+   * @return true if the snapshot is empty, false otherwise.
+   */
+  public boolean isEmpty() {
+    return this.count == 0;
+  }
+
+  /**
+   * Returns the number of elements in the snapshot.
+   *
+   * @return the number of elements in the snapshot.
+   */
+  public long size() {
+    return this.count;
+  }
+
+  /**
+   * Returns the comparator used to order the elements of the snapshot.
+   *
+   * @return the comparator used to order the elements.
+   */
+  public Comparator<? super T> comparator() {
+    return this.comparator;
+  }
+
+  /**
+   * Unmaps the snapshot right away; the snapshot cannot be used afterwards.
+   * Closing a closed snapshot has no effect. No other thread may be using the
+   * snapshot or one of its iterators when it is closed.
+   */
+  @Override
+  public void close() {
+    if (this.regions == null) {
+      return;
+    }
+
+    MappedByteBuffer[] regions = this.regions;
+    this.regions = null;
+    unmap(regions);
+  }
+
+  /**
+   * Returns the index of the first element, in order, that is not less than
+   * the specified one, or -1 if there is none.
+   */
+  private long lowerBound(T element) {
+    long index = 0;
+    long found = -1;
+
+    while (index < this.count) {
+      if (this.comparator.compare(this.elementAt(index), element) >= 0) {
+        found = index;
+        index = 2 * index + 1;
+      } else {
+        index = 2 * index + 2;
+      }
+    }
+
+    return found;
+  }
+
+  private T elementAt(long index) {
+    MappedByteBuffer region = this.regions[(int) (index >>> this.regionShift)];
+    return this.codec.decode(region, (int) (index & this.regionMask) * this.recordSize);
+  }
+
+  private void ensureOpen() {
+    if (this.regions == null) {
+      throw new IllegalStateException("Snapshot is closed");
+    }
+  }
+
+  /**
+   * Returns the index of the leftmost node of the subtree rooted at the
+   * specified index, or -1 if the subtree is empty.
+   */
+  private static long leftmost(long index, long count) {
+    if (index >= count) {
+      return -1;
+    }
+
+    while (2 * index + 1 < count) {
+      index = 2 * index + 1;
+    }
+    return index;
+  }
+
+  /**
+   * Returns the index following the specified one in an in-order walk of an
+   * implicit tree of {@code count} nodes, or -1 if it is the last one.
+   */
+  private static long successor(long index, long count) {
+    if (2 * index + 2 < count) {
+      return leftmost(2 * index + 2, count);
+    }
+
+    // climb while coming from a right child; the parent of a left child is next
+    while (index > 0 && (index & 1) == 0) {
+      index = (index - 1) >>> 1;
+    }
+    return index == 0 ? -1 : (index - 1) >>> 1;
+  }
+
+  /**
+   * Maps the records of a snapshot as regions of a power of two records each,
+   * so that a record never straddles two regions and every region stays
+   * within the size of a single mapping.
+   */
+  private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, int recordSize,
+      int regionShift, long count) throws IOException {
+    long recordsPerRegion = 1L << regionShift;
+    MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((count + recordsPerRegion - 1) >>> regionShift)];
+
+    for (int i = 0; i < regions.length; i++) {
+      long first = (long) i << regionShift;
+      long records = Math.min(recordsPerRegion, count - first);
+      regions[i] = channel.map(mode, HEADER_BYTES + first * recordSize, records * recordSize);
+    }
+
+    return regions;
+  }
+
+  private static void unmap(MappedByteBuffer[] regions) {
+    for (MappedByteBuffer region : regions) {
+      DirectBuffers.free(region);
+    }
+  }
+
+  private static int regionShift(int recordSize) {
+    return Long.numberOfTrailingZeros(Long.highestOneBit(Math.max(1, REGION_BYTES / recordSize)));
+  }
+
+  private static int recordSizeOf(RecordCodec<?> codec) {
+    if (codec == null || codec.recordSize() <= 0) {
+      throw new IllegalArgumentException("Codec must have a positive record size");
+    }
+    return codec.recordSize();
+  }
+}
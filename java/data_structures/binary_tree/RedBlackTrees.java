@@ -1,13 +1,26 @@
 import collections.Collection;
-
-public class RedBlackTrees<T extends Comparable<T>> extends BinarySearchTree<T> {
+import java.util.Comparator;
+
+/**
+ * A Red-Black Tree implementation that extends a BinarySearchTree.
+ * 
+ * Every node also stores the size of its subtree, kept up to date by the
+ * rotations and rebalancing, so order-statistic queries such as
+ * {@link #rank(Object)}, {@link #select(int)} and
+ * {@link #countInRange(Object, Object)} run in O(log n).
+ * 
+ * @param <T> the type of elements maintained by this tree.
+ */
+public class RedBlackTrees<T> extends BinarySearchTree<T> {
 
   protected class RedBlackNode extends Node {
     public Color color;
+    public int size;
 
     public RedBlackNode(T element) {
       super(element);
       this.color = Color.NONE;
+      this.size = 1;
     }
 
     @Override
@@ -38,6 +51,14 @@ public class RedBlackTrees<T extends Comparable<T>> extends BinarySearchTree<T>
     super(collection);
   }
 
+  public RedBlackTrees(Comparator<? super T> comparator) {
+    super(comparator);
+  }
+
+  public RedBlackTrees(Collection<T> collection, Comparator<? super T> comparator) {
+    super(collection, comparator);
+  }
+
   public Color getColor(NodeBinaryTree<T> node) {
     return ((RedBlackNode) node).color;
   }
@@ -53,26 +74,46 @@ public class RedBlackTrees<T extends Comparable<T>> extends BinarySearchTree<T>
     RedBlackNode lastAdded = (RedBlackNode) this.getLastAdded();
     lastAdded.color = Color.RED;
 
+    for (Node node = lastAdded.parent; node != null; node = node.parent) {
+      ((RedBlackNode) node).size++;
+    }
+
     this.rebalanceAdd(lastAdded);
   }
 
+  /**
+   * Colors the nodes of a tree built from sorted elements. Every path of such a
+   * tree reaches depth maxDepth - 1, so making the nodes above the deepest
+   * level black and those on it red gives every path the same number of black
+   * nodes without two reds in a row.
+   */
+  @Override
+  protected void balancedNode(Node node, int depth, int maxDepth, int size) {
+    RedBlackNode redBlackNode = (RedBlackNode) node;
+
+    redBlackNode.color = depth == maxDepth && depth > 0 ? Color.RED : Color.BLACK;
+    redBlackNode.size = size;
+  }
+
   protected void rebalanceAdd(RedBlackNode node) {
     if (!node.hasParent()) {
       node.color = Color.BLACK;
       return;
     }
 
-    RedBlackNode parent = (RedBlackNode) node.parent();
+    RedBlackNode parent = (RedBlackNode) node.parent;
     if (parent.color == Color.BLACK) {
       return;
     }
 
-    RedBlackNode grandParent = (RedBlackNode) parent.parent();
-    RedBlackNode uncle = grandParent.hasLeft() && grandParent.leftChild.equals(parent)
-        ? (RedBlackNode) grandParent.rightChild()
-        : (RedBlackNode) grandParent.leftChild();
+    // a red parent is never the root, so the grandparent exists
+    RedBlackNode grandParent = (RedBlackNode) parent.parent;
+    boolean parentIsLeft = grandParent.leftChild == parent;
+    RedBlackNode uncle = parentIsLeft
+        ? (RedBlackNode) grandParent.rightChild
+        : (RedBlackNode) grandParent.leftChild;
 
-    if (uncle.color == Color.RED) {
+    if (this.colorOf(uncle) == Color.RED) {
       uncle.color = Color.BLACK;
       parent.color = Color.BLACK;
       grandParent.color = Color.RED;
@@ -81,33 +122,26 @@ public class RedBlackTrees<T extends Comparable<T>> extends BinarySearchTree<T>
       return;
     }
 
-    boolean nodeIsLeft = parent.hasLeft() && parent.leftChild.equals(node) ? true : false;
-    boolean parentIsLeft = grandParent.hasLeft() && grandParent.leftChild.equals(parent) ? true : false;
+    boolean nodeIsLeft = parent.leftChild == node;
 
-    if (nodeIsLeft && !parentIsLeft || !nodeIsLeft && parentIsLeft) {
+    if (nodeIsLeft != parentIsLeft) {
       if (parentIsLeft) {
         this.rotateLeft(parent);
       } else {
         this.rotateRight(parent);
       }
 
-      RedBlackNode tmp = parent;
       parent = node;
-      node = tmp;
-
     }
 
-    RedBlackNode parentGrandParent = (RedBlackNode) grandParent.parent();
-    boolean grandParentIsLeft = parentGrandParent.hasLeft() && parentGrandParent.leftChild.equals(grandParent)
-        ? true
-        : false;
+    parent.color = Color.BLACK;
+    grandParent.color = Color.RED;
 
-    if (grandParentIsLeft) {
-      this.rotateLeft(grandParent);
-    } else {
+    if (parentIsLeft) {
       this.rotateRight(grandParent);
+    } else {
+      this.rotateLeft(grandParent);
     }
-
   }
 
   @Override
@@ -118,129 +152,208 @@ public class RedBlackTrees<T extends Comparable<T>> extends BinarySearchTree<T>
     }
 
     if (node.hasLeft() && node.hasRight()) {
-      Node swappedNode = this.swapRemovable(node);
+      node = (RedBlackNode) this.swapRemovable(node);
     }
 
-    RedBlackNode children = null;
-    boolean isGhost = false;
-    if (!node.hasLeft() && !node.hasRight()) {
-      children = (RedBlackNode) this.newNode(element);
-      node.leftChild = children;
-      children.element = null;
-      isGhost = true;
+    this.elements--;
+    node.size = 0;
+    for (Node ancestor = node.parent; ancestor != null; ancestor = ancestor.parent) {
+      ((RedBlackNode) ancestor).size--;
     }
 
-    if (children == null) {
-      children = node.hasLeft()
-          ? (RedBlackNode) node.leftChild
-          : (RedBlackNode) node.rightChild;
-    }
-
-    this.removeNode(node);
+    // the node has at most one child now; a black node with a single child
+    // always has a red one, so only a black leaf leaves a black-height deficit
+    RedBlackNode child = node.hasLeft()
+        ? (RedBlackNode) node.leftChild
+        : (RedBlackNode) node.rightChild;
 
-    if (children.color == Color.RED && node.color == Color.BLACK) {
-      children.color = Color.BLACK;
-      return;
-    }
-
-    if (node.color == Color.RED && children.color == Color.BLACK) {
-      return;
-    }
-
-    if (node.color == Color.BLACK && children.color == Color.BLACK) {
-      this.rebalanceRemove(children);
+    if (node.color == Color.BLACK) {
+      if (child != null) {
+        child.color = Color.BLACK;
+      } else {
+        this.rebalanceRemove(node);
+      }
     }
 
-    if (isGhost) {
-      if (node.hasLeft() && node.leftChild.equals(children)) {
-        node.leftChild = null;
-        return;
-      }
-      node.rightChild = null;
+    this.removeNode(node);
+    if (this.elements == 0) {
+      this.lastAdded = null;
     }
   }
 
   protected void rebalanceRemove(RedBlackNode node) {
-    if (!node.hasParent()) {
+    if (!node.hasParent() || node.color == Color.RED) {
+      node.color = Color.BLACK;
       return;
     }
 
-    RedBlackNode parent = (RedBlackNode) node.parent();
-    RedBlackNode brother = parent.hasLeft() && parent.leftChild.equals(node)
-        ? (RedBlackNode) parent.rightChild()
-        : (RedBlackNode) parent.leftChild();
-
-    boolean nodeIsLeft = parent.hasLeft() && parent.leftChild.equals(node) ? true : false;
+    RedBlackNode parent = (RedBlackNode) node.parent;
+    boolean nodeIsLeft = parent.leftChild == node;
+    RedBlackNode brother = nodeIsLeft
+        ? (RedBlackNode) parent.rightChild
+        : (RedBlackNode) parent.leftChild;
 
-    if (brother.color == Color.RED && parent.color == Color.BLACK) {
-      parent.color = Color.RED;
+    if (brother.color == Color.RED) {
       brother.color = Color.BLACK;
+      parent.color = Color.RED;
 
       if (nodeIsLeft) {
         this.rotateLeft(parent);
+        brother = (RedBlackNode) parent.rightChild;
       } else {
         this.rotateRight(parent);
+        brother = (RedBlackNode) parent.leftChild;
       }
     }
 
     RedBlackNode left = (RedBlackNode) brother.leftChild;
     RedBlackNode right = (RedBlackNode) brother.rightChild;
 
-    if (parent.color == Color.BLACK && brother.color == Color.BLACK && (left == null || left.color == Color.BLACK)
-        && (right == null || right.color == Color.BLACK)) {
+    if (this.colorOf(left) == Color.BLACK && this.colorOf(right) == Color.BLACK) {
       brother.color = Color.RED;
       this.rebalanceRemove(parent);
       return;
     }
 
-    if (parent.color == Color.RED && brother.color == Color.BLACK && (left == null || left.color == Color.BLACK)
-        && (right == null || right.color == Color.BLACK)) {
+    if (nodeIsLeft && this.colorOf(right) == Color.BLACK) {
+      left.color = Color.BLACK;
       brother.color = Color.RED;
-      parent.color = Color.BLACK;
-      return;
-    }
-
-    if ((nodeIsLeft && left.color == Color.RED && (right == null || right.color == Color.BLACK)) ||
-        (!nodeIsLeft && right.color == Color.RED && (left == null || left.color == Color.BLACK))) {
+      this.rotateRight(brother);
+      brother = (RedBlackNode) parent.rightChild;
+    } else if (!nodeIsLeft && this.colorOf(left) == Color.BLACK) {
+      right.color = Color.BLACK;
       brother.color = Color.RED;
-
-      if (left != null && left.color == Color.RED) {
-        left.color = Color.BLACK;
-      } else {
-        right.color = Color.BLACK;
-      }
-
-      if (nodeIsLeft) {
-        this.rotateRight(brother);
-      } else {
-        this.rotateLeft(brother);
-      }
+      this.rotateLeft(brother);
+      brother = (RedBlackNode) parent.leftChild;
     }
 
     brother.color = parent.color;
     parent.color = Color.BLACK;
 
     if (nodeIsLeft) {
-      right.color = Color.BLACK;
-    } else {
-      left.color = Color.BLACK;
-    }
-
-    if (nodeIsLeft) {
+      ((RedBlackNode) brother.rightChild).color = Color.BLACK;
       this.rotateLeft(parent);
     } else {
+      ((RedBlackNode) brother.leftChild).color = Color.BLACK;
       this.rotateRight(parent);
     }
   }
 
   @Override
   public void rotateLeft(NodeBinaryTree<T> node) {
-    throw new UnsupportedOperationException();
+    if (!node.hasRight()) {
+      return;
+    }
+
+    RedBlackNode pivot = (RedBlackNode) node;
+    RedBlackNode rightChild = (RedBlackNode) pivot.rightChild;
+    int size = pivot.size;
+
+    super.rotateLeft(node);
+    rightChild.size = size;
+    pivot.size = 1 + this.sizeOf(pivot.leftChild) + this.sizeOf(pivot.rightChild);
   }
 
   @Override
   public void rotateRight(NodeBinaryTree<T> node) {
-    throw new UnsupportedOperationException();
+    if (!node.hasLeft()) {
+      return;
+    }
+
+    RedBlackNode pivot = (RedBlackNode) node;
+    RedBlackNode leftChild = (RedBlackNode) pivot.leftChild;
+    int size = pivot.size;
+
+    super.rotateRight(node);
+    leftChild.size = size;
+    pivot.size = 1 + this.sizeOf(pivot.leftChild) + this.sizeOf(pivot.rightChild);
+  }
+
+  /**
+   * Returns the number of elements in this tree that are strictly less than
+   * the specified element.
+   * 
+   * @param element the element whose rank is computed.
+   * @return the number of elements less than the element.
+   */
+  public int rank(T element) {
+    return this.countBelow(element, false);
+  }
+
+  /**
+   * Returns the element at the specified position in the sorted order of this
+   * tree, counting from zero.
+   * 
+   * @param index the position of the element.
+   * @return the element with {@code index} smaller elements before it.
+   * @throws IndexOutOfBoundsException if the index is negative or not less
+   *                                   than the number of elements.
+   */
+  public T select(int index) {
+    if (index < 0 || index >= this.elements) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    Node currentNode = this.root;
+
+    while (true) {
+      int leftSize = this.sizeOf(currentNode.leftChild);
+
+      if (index < leftSize) {
+        currentNode = currentNode.leftChild;
+      } else if (index == leftSize) {
+        return currentNode.element;
+      } else {
+        index -= leftSize + 1;
+        currentNode = currentNode.rightChild;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of elements in this tree between {@code lo} and
+   * {@code hi}, both inclusive.
+   * 
+   * @param lo the lower bound of the range.
+   * @param hi the upper bound of the range.
+   * @return the number of elements in the range, or 0 if {@code lo > hi}.
+   */
+  public int countInRange(T lo, T hi) {
+    if (this.comparator.compare(lo, hi) > 0) {
+      return 0;
+    }
+
+    return this.countBelow(hi, true) - this.countBelow(lo, false);
+  }
+
+  /**
+   * Counts the elements less than (or, if {@code inclusive}, not greater
+   * than) the specified element in a single descent.
+   */
+  private int countBelow(T element, boolean inclusive) {
+    int count = 0;
+    Node currentNode = this.root;
+
+    while (currentNode != null) {
+      int comparison = this.comparator.compare(element, currentNode.element);
+
+      if (comparison < 0 || (comparison == 0 && !inclusive)) {
+        currentNode = currentNode.leftChild;
+      } else {
+        count += this.sizeOf(currentNode.leftChild) + 1;
+        currentNode = currentNode.rightChild;
+      }
+    }
+
+    return count;
+  }
+
+  private int sizeOf(Node node) {
+    return node == null ? 0 : ((RedBlackNode) node).size;
+  }
+
+  private Color colorOf(RedBlackNode node) {
+    return node == null ? Color.BLACK : node.color;
   }
 
 }
@@ -0,0 +1,73 @@
+package collections;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases the native memory of direct buffers without waiting for the
+ * garbage collector, used by the collections that keep their elements outside
+ * the Java heap.
+ *
+ * The memory is freed through the cleaner the JDK attaches to every direct
+ * buffer, reached via {@code sun.misc.Unsafe#invokeCleaner}. On a runtime that
+ * does not provide it, {@link #free(ByteBuffer)} does nothing and the memory
+ * is returned when the buffer is collected, as it would be otherwise.
+ */
+public final class DirectBuffers {
+
+  private static final Object UNSAFE;
+  private static final Method INVOKE_CLEANER;
+
+  static {
+    Object unsafe = null;
+    Method invokeCleaner = null;
+
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      unsafe = null;
+      invokeCleaner = null;
+    }
+
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+  }
+
+  private DirectBuffers() {
+  }
+
+  /**
+   * Frees the native memory of the specified direct buffer right away. The
+   * buffer must have been obtained from {@link ByteBuffer#allocateDirect(int)}
+   * or a file mapping, not be a slice or duplicate of one, and must never be
+   * accessed again through any reference: doing so reads freed memory and may
+   * crash the virtual machine.
+   *
+   * @param buffer the buffer to be freed, or null to do nothing
+   * @throws IllegalArgumentException if the buffer is not direct, or is a slice
+   *                                  or duplicate of another buffer
+   */
+  public static void free(ByteBuffer buffer) {
+    if (buffer == null || INVOKE_CLEANER == null) {
+      return;
+    }
+
+    try {
+      INVOKE_CLEANER.invoke(UNSAFE, buffer);
+    } catch (InvocationTargetException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package collections;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A codec that stores elements as fixed-width binary records, used by the
+ * collections that keep their elements outside the Java heap.
+ *
+ * @param <T> the type of elements encoded by this codec
+ */
+public interface RecordCodec<T> {
+
+  /**
+   * Returns the number of bytes taken by every record.
+   *
+   * @return the size of a record in bytes, at least 1
+   */
+  public int recordSize();
+
+  /**
+   * Writes the specified element as a record starting at the specified offset
+   * of the buffer. Implementations must use absolute puts, write only the
+   * {@link #recordSize()} bytes starting at the offset and not keep a
+   * reference to the buffer, which may be freed once the collection is closed.
+   *
+   * @param element the element to be encoded, never null
+   * @param buffer  the buffer receiving the record
+   * @param offset  the offset of the record in the buffer
+   */
+  public void encode(T element, ByteBuffer buffer, int offset);
+
+  /**
+   * Reads the record starting at the specified offset of the buffer.
+   * Implementations must use absolute gets and not keep a reference to the
+   * buffer.
+   *
+   * @param buffer the buffer holding the record
+   * @param offset the offset of the record in the buffer
+   * @return the decoded element
+   */
+  public T decode(ByteBuffer buffer, int offset);
+}
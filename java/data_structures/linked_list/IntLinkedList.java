@@ -0,0 +1,444 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A list of primitive int values offering the positional API of
+ * {@link LinkedList}.
+ *
+ * Values are stored unboxed in a circular array whose capacity is a power of
+ * two, so adding or removing at either end is O(1) amortized, access by
+ * position is O(1), and insertion or removal in the middle shifts whichever
+ * side of the position is shorter. No value is ever boxed, and no node object
+ * is allocated per value.
+ */
+public class IntLinkedList {
+
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  /**
+   * An iterator over the values of the list.
+   */
+  private class IteratorIntLL implements PrimitiveIterator.OfInt {
+
+    private int next;
+
+    /**
+     * Constructs a new iterator starting at the head of the list.
+     */
+    private IteratorIntLL() {
+      this.next = 0;
+    }
+
+    /**
+     * Returns {@code true} if the iteration has more values.
+     *
+     * @return {@code true} if the iteration has more values
+     */
+    @Override
+    public boolean hasNext() {
+      return this.next < length;
+    }
+
+    /**
+     * Returns the next value in the iteration.
+     *
+     * @return the next value in the iteration
+     * @throws NoSuchElementException if the iteration has no more values
+     */
+    @Override
+    public int nextInt() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return valueAt(this.next++);
+    }
+  }
+
+  private int[] array;
+  private int head;
+  private int length;
+
+  /**
+   * Constructs an empty list.
+   */
+  public IntLinkedList() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty list with room for the specified number of values
+   * before growing.
+   *
+   * @param capacity the initial capacity of the list
+   * @throws IllegalArgumentException if the capacity is negative
+   */
+  public IntLinkedList(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative");
+    }
+
+    this.array = new int[IntLinkedList.tableSize(capacity)];
+    this.head = 0;
+    this.length = 0;
+  }
+
+  /**
+   * Adds the specified value to the end of this list.
+   *
+   * @param value the value to be added
+   */
+  public void add(int value) {
+    this.addEnd(value);
+  }
+
+  /**
+   * Adds the specified value to the end of this list.
+   *
+   * @param value the value to be added
+   */
+  public void addEnd(int value) {
+    this.ensureCapacity(this.length + 1);
+    this.array[(this.head + this.length) & (this.array.length - 1)] = value;
+    this.length++;
+  }
+
+  /**
+   * Adds the specified value to the start of this list.
+   *
+   * @param value the value to be added
+   */
+  public void addStart(int value) {
+    this.ensureCapacity(this.length + 1);
+    this.head = (this.head - 1) & (this.array.length - 1);
+    this.array[this.head] = value;
+    this.length++;
+  }
+
+  /**
+   * Inserts the specified value at the specified position in this list.
+   * Positions before the start or past the end add the value there.
+   *
+   * @param index the index at which the specified value is to be inserted
+   * @param value the value to be inserted
+   */
+  public void insert(int index, int value) {
+    if (index <= 0) {
+      this.addStart(value);
+      return;
+    }
+
+    if (index >= this.length) {
+      this.addEnd(value);
+      return;
+    }
+
+    this.ensureCapacity(this.length + 1);
+
+    if (index < this.length >> 1) {
+      // move the values before the position one slot to the left
+      this.head = (this.head - 1) & (this.array.length - 1);
+      for (int i = 0; i < index; i++) {
+        this.setValueAt(i, this.valueAt(i + 1));
+      }
+    } else {
+      for (int i = this.length; i > index; i--) {
+        this.setValueAt(i, this.valueAt(i - 1));
+      }
+    }
+
+    this.setValueAt(index, value);
+    this.length++;
+  }
+
+  /**
+   * Removes the first occurrence of the specified value from this list, if it
+   * is present.
+   *
+   * @param value the value to be removed
+   */
+  public void remove(int value) {
+    int index = this.indexOf(value);
+
+    if (index != -1) {
+      this.removeAt(index);
+    }
+  }
+
+  /**
+   * Removes and returns the value at the specified position in this list.
+   *
+   * @param index the index of the value to be removed
+   * @return the value previously at the specified position
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  public int removeAt(int index) {
+    if (index < 0 || index >= this.length) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    int value = this.valueAt(index);
+
+    if (index < this.length >> 1) {
+      for (int i = index; i > 0; i--) {
+        this.setValueAt(i, this.valueAt(i - 1));
+      }
+      this.head = (this.head + 1) & (this.array.length - 1);
+    } else {
+      for (int i = index; i < this.length - 1; i++) {
+        this.setValueAt(i, this.valueAt(i + 1));
+      }
+    }
+
+    this.length--;
+    return value;
+  }
+
+  /**
+   * Removes and returns the first value from this list.
+   *
+   * @return the first value from this list
+   * @throws NoSuchElementException if this list is empty
+   */
+  public int removeFirst() {
+    if (this.length == 0) {
+      throw new NoSuchElementException();
+    }
+
+    int value = this.array[this.head];
+    this.head = (this.head + 1) & (this.array.length - 1);
+    this.length--;
+
+    return value;
+  }
+
+  /**
+   * Removes and returns the last value from this list.
+   *
+   * @return the last value from this list
+   * @throws NoSuchElementException if this list is empty
+   */
+  public int removeLast() {
+    if (this.length == 0) {
+      throw new NoSuchElementException();
+    }
+
+    this.length--;
+    return this.valueAt(this.length);
+  }
+
+  /**
+   * Returns the first value in this list.
+   *
+   * @return the first value in this list
+   * @throws NoSuchElementException if this list is empty
+   */
+  public int getFirst() {
+    if (this.length == 0) {
+      throw new NoSuchElementException();
+    }
+
+    return this.array[this.head];
+  }
+
+  /**
+   * Returns the last value in this list.
+   *
+   * @return the last value in this list
+   * @throws NoSuchElementException if this list is empty
+   */
+  public int getLast() {
+    if (this.length == 0) {
+      throw new NoSuchElementException();
+    }
+
+    return this.valueAt(this.length - 1);
+  }
+
+  /**
+   * Returns the value at the specified position in this list.
+   *
+   * @param index the index of the value to be returned
+   * @return the value at the specified position in this list
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  public int get(int index) {
+    if (index < 0 || index >= this.length) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    return this.valueAt(index);
+  }
+
+  /**
+   * Returns {@code true} if this list contains the specified value.
+   *
+   * @param value the value whose presence in this list is to be tested
+   * @return {@code true} if this list contains the specified value
+   */
+  public boolean contains(int value) {
+    return this.indexOf(value) != -1;
+  }
+
+  /**
+   * Returns the index of the first occurrence of the specified value in this
+   * list, or -1 if this list does not contain the value.
+   *
+   * @param value the value to search for
+   * @return the index of the first occurrence of the value, or -1
+   */
+  public int indexOf(int value) {
+    for (int i = 0; i < this.length; i++) {
+      if (this.valueAt(i) == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns {@code true} if this list contains no values.
+   *
+   * @return {@code true} if this list contains no values
+   */
+  public boolean isEmpty() {
+    return this.length == 0;
+  }
+
+  /**
+   * Returns the number of values in this list.
+   *
+   * @return the number of values in this list
+   */
+  public int getLength() {
+    return this.length;
+  }
+
+  /**
+   * Removes all of the values from this list.
+   */
+  public void clear() {
+    this.head = 0;
+    this.length = 0;
+  }
+
+  /**
+   * Returns an iterator over the values in this list in proper sequence.
+   *
+   * @return an unboxed iterator over the values in this list
+   */
+  public PrimitiveIterator.OfInt iterator() {
+    return new IteratorIntLL();
+  }
+
+  /**
+   * Returns a new array containing the values of this list in order.
+   *
+   * @return an array with the values of this list
+   */
+  public int[] toArray() {
+    int[] values = new int[this.length];
+    int firstPart = Math.min(this.length, this.array.length - this.head);
+
+    System.arraycopy(this.array, this.head, values, 0, firstPart);
+    System.arraycopy(this.array, 0, values, firstPart, this.length - firstPart);
+
+    return values;
+  }
+
+  /**
+   * Returns a string representation of this list.
+   *
+   * @return a string representation of this list
+   */
+  @Override
+  public String toString() {
+    return Arrays.toString(this.toArray());
+  }
+
+  /**
+   * Compares the specified object with this list for equality.
+   *
+   * @param object the object to be compared for equality with this list
+   * @return {@code true} if the specified object is equal to this list
+   */
+  @Override
+  public boolean equals(Object object) {
+    if (object == null || this.getClass() != object.getClass()) {
+      return false;
+    }
+    IntLinkedList list = (IntLinkedList) object;
+
+    if (this.length != list.length) {
+      return false;
+    }
+
+    for (int i = 0; i < this.length; i++) {
+      if (this.valueAt(i) != list.valueAt(i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns a hash code for this list, consistent with {@link #equals(Object)}.
+   *
+   * @return a hash code computed from the elements of this list, in order
+   */
+  @Override
+  public int hashCode() {
+    int hash = 1;
+
+    for (int i = 0; i < this.length; i++) {
+      hash = 31 * hash + Integer.hashCode(this.valueAt(i));
+    }
+    return hash;
+  }
+
+  private int valueAt(int index) {
+    return this.array[(this.head + index) & (this.array.length - 1)];
+  }
+
+  private void setValueAt(int index, int value) {
+    this.array[(this.head + index) & (this.array.length - 1)] = value;
+  }
+
+  /**
+   * Grows the array, unwrapping the values to start at index 0, until it has
+   * room for the specified number of values.
+   *
+   * @param capacity the minimum capacity required
+   */
+  private void ensureCapacity(int capacity) {
+    if (capacity <= this.array.length) {
+      return;
+    }
+
+    if (capacity > MAX_CAPACITY || capacity < 0) {
+      throw new IllegalStateException("List capacity exceeded");
+    }
+
+    int[] values = this.toArray();
+    this.array = new int[IntLinkedList.tableSize(Math.max(capacity, this.array.length << 1))];
+    System.arraycopy(values, 0, this.array, 0, values.length);
+    this.head = 0;
+  }
+
+  /**
+   * Returns the smallest power of two not less than the specified capacity.
+   *
+   * @param capacity the requested capacity
+   * @return the array length to allocate
+   */
+  private static int tableSize(int capacity) {
+    if (capacity <= 1) {
+      return 1;
+    }
+
+    return capacity >= MAX_CAPACITY ? MAX_CAPACITY : Integer.highestOneBit(capacity - 1) << 1;
+  }
+}
@@ -1,11 +1,23 @@
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
 
 import collections.Collection;
 
 /**
  * A doubly linked list implementation of the Collection interface.
  *
+ * Positional access walks from whichever end of the list is closer. Lists
+ * created with {@link #indexed()} also keep an indexable skip list over the
+ * nodes: a few sparse levels of entries that record how many nodes they skip,
+ * so {@link #get(int)}, {@link #insert(int, Object)} and
+ * {@link #removeAt(int)} take O(log n) expected time. Lists created with
+ * {@link #hashed()} instead keep a hash index from each element to the nodes
+ * holding it, so {@link #contains(Object)} and {@link #remove(Object)} take
+ * O(1) expected time; elements must then implement {@code hashCode}
+ * consistently with {@code equals}.
+ *
  * @param <T> the type of elements in this list
  */
 public class LinkedList<T> implements Collection<T> {
@@ -31,6 +43,69 @@ public class LinkedList<T> implements Collection<T> {
     }
   }
 
+  /**
+   * A node of a hashed list, also linked to the previous and next nodes
+   * holding an equal element.
+   */
+  private class HashedNode extends Node {
+
+    private HashedNode previousEqual;
+    private HashedNode nextEqual;
+
+    /**
+     * Constructs a new node with the specified element.
+     *
+     * @param element the element to be stored in this node
+     */
+    private HashedNode(T element) {
+      super(element);
+    }
+  }
+
+  /**
+   * The first and last nodes holding a given element in a hashed list.
+   */
+  private class HashEntry {
+
+    private HashedNode first;
+    private HashedNode last;
+
+    /**
+     * Constructs a new entry for a single node.
+     *
+     * @param node the only node holding the element
+     */
+    private HashEntry(HashedNode node) {
+      this.first = node;
+      this.last = node;
+    }
+  }
+
+  /**
+   * An entry of the skip list index. Each level is a singly linked chain of
+   * entries starting at a sentinel, which stands before the first node.
+   */
+  private class IndexNode {
+
+    private Node node;
+    private IndexNode right;
+    private IndexNode down;
+    private int width;
+
+    /**
+     * Constructs a new entry for the specified node.
+     *
+     * @param node the node this entry points at, or null for a sentinel
+     * @param down the entry for the same node one level below, if any
+     */
+    private IndexNode(Node node, IndexNode down) {
+      this.node = node;
+      this.right = null;
+      this.down = down;
+      this.width = 0;
+    }
+  }
+
   /**
    * An iterator over the linked list.
    */
@@ -122,9 +197,63 @@ public class LinkedList<T> implements Collection<T> {
     }
   }
 
+  private static final int MAX_INDEX_LEVELS = 32;
+
   private Node head;
   private Node tail;
   private int length = 0;
+  private final boolean indexed;
+  private IndexNode indexHead;
+  private int indexLevels;
+  // scratch space filled by findPredecessors, allocated once per indexed list
+  private final IndexNode[] predecessors;
+  private final int[] positions;
+  private final HashMap<T, HashEntry> hashIndex;
+
+  /**
+   * Constructs an empty list.
+   */
+  public LinkedList() {
+    this(false, false);
+  }
+
+  /**
+   * Constructs an empty list, optionally keeping a skip list index or a hash
+   * index.
+   *
+   * @param indexed whether positional operations use the skip list index
+   * @param hashed  whether lookups by element use the hash index
+   */
+  @SuppressWarnings("unchecked")
+  private LinkedList(boolean indexed, boolean hashed) {
+    this.indexed = indexed;
+    this.predecessors = indexed ? (IndexNode[]) new LinkedList<?>.IndexNode[MAX_INDEX_LEVELS] : null;
+    this.positions = indexed ? new int[MAX_INDEX_LEVELS] : null;
+    this.hashIndex = hashed ? new HashMap<>() : null;
+  }
+
+  /**
+   * Creates an empty list that keeps a skip list index over its nodes, making
+   * access, insertion and removal by position O(log n) expected.
+   *
+   * @param <T> the type of elements in the list
+   * @return a new indexed list
+   */
+  public static <T> LinkedList<T> indexed() {
+    return new LinkedList<>(true, false);
+  }
+
+  /**
+   * Creates an empty list that keeps a hash index from each element to the
+   * nodes holding it, making {@code contains} and {@code remove} by element
+   * O(1) expected. Order, duplicates and iteration are those of a plain list.
+   *
+   * @param <T> the type of elements in the list
+   * @return a new hashed list
+   */
+  public static <T> LinkedList<T> hashed() {
+    return new LinkedList<>(false, true);
+  }
 
   /**
    * Adds the specified element to the end of this list.
@@ -137,18 +266,7 @@ public class LinkedList<T> implements Collection<T> {
       throw new IllegalArgumentException();
     }
 
-    Node newNode = new Node(element);
-    length++;
-
-    if (head == null) {
-      head = newNode;
-      tail = newNode;
-      return;
-    }
-
-    this.tail.next = newNode;
-    newNode.previous = this.tail;
-    this.tail = newNode;
+    this.addEnd(element);
   }
 
   /**
@@ -159,6 +277,24 @@ public class LinkedList<T> implements Collection<T> {
    */
   @Override
   public void remove(T element) {
+    if (this.indexed) {
+      int index = this.indexOf(element);
+
+      if (index != -1) {
+        this.removeIndexed(index);
+      }
+      return;
+    }
+
+    if (this.hashIndex != null) {
+      HashEntry entry = this.hashIndex.get(element);
+
+      if (entry != null) {
+        this.unlink(entry.first);
+      }
+      return;
+    }
+
     Node currentNode = head;
 
     while (currentNode != null) {
@@ -174,10 +310,7 @@ public class LinkedList<T> implements Collection<T> {
           return;
         }
 
-        this.length--;
-        currentNode.previous.next = currentNode.next;
-        currentNode.next.previous = currentNode.previous;
-
+        this.unlink(currentNode);
         return;
       }
 
@@ -193,6 +326,10 @@ public class LinkedList<T> implements Collection<T> {
    */
   @Override
   public boolean contains(T element) {
+    if (this.hashIndex != null) {
+      return this.hashIndex.containsKey(element);
+    }
+
     Node currentNode = this.head;
 
     while (currentNode != null) {
@@ -235,6 +372,12 @@ public class LinkedList<T> implements Collection<T> {
     this.head = null;
     this.tail = null;
     this.length = 0;
+    this.indexHead = null;
+    this.indexLevels = 0;
+
+    if (this.hashIndex != null) {
+      this.hashIndex.clear();
+    }
   }
 
   /**
@@ -269,7 +412,6 @@ public class LinkedList<T> implements Collection<T> {
     }
 
     rep += "]";
-    System.out.println(rep);
     return rep;
 
   }
@@ -325,18 +467,26 @@ public class LinkedList<T> implements Collection<T> {
     if (element == null) {
       throw new IllegalArgumentException();
     }
-    Node newNode = new Node(element);
+
+    if (this.indexed) {
+      this.insertIndexed(this.length, new Node(element));
+      return;
+    }
+
+    Node newNode = this.newNode(element);
     this.length++;
 
     if (this.head == null) {
       this.head = newNode;
       this.tail = newNode;
+      this.hashLink(newNode);
       return;
     }
 
     this.tail.next = newNode;
     newNode.previous = this.tail;
     this.tail = newNode;
+    this.hashLink(newNode);
   }
 
   /**
@@ -348,18 +498,26 @@ public class LinkedList<T> implements Collection<T> {
     if (element == null) {
       throw new IllegalArgumentException();
     }
-    Node newNode = new Node(element);
+
+    if (this.indexed) {
+      this.insertIndexed(0, new Node(element));
+      return;
+    }
+
+    Node newNode = this.newNode(element);
     this.length++;
 
     if (this.head == null) {
       this.head = newNode;
       this.tail = newNode;
+      this.hashLink(newNode);
       return;
     }
 
     newNode.next = this.head;
     this.head.previous = newNode;
     this.head = newNode;
+    this.hashLink(newNode);
   }
 
   /**
@@ -373,6 +531,11 @@ public class LinkedList<T> implements Collection<T> {
       throw new IllegalArgumentException();
     }
 
+    if (this.indexed) {
+      this.insertIndexed(Math.max(0, Math.min(index, this.length)), new Node(element));
+      return;
+    }
+
     if (index <= 0) {
       this.addStart(element);
       return;
@@ -383,20 +546,15 @@ public class LinkedList<T> implements Collection<T> {
       return;
     }
 
-    Node newNode = new Node(element);
-    Node currentNode = this.head.next;
-    int currentIndex = 1;
+    Node newNode = this.newNode(element);
+    Node currentNode = this.nodeAt(index);
     this.length++;
 
-    while (currentIndex != index) {
-      currentIndex++;
-      currentNode = currentNode.next;
-    }
-
     newNode.previous = currentNode.previous;
     newNode.next = currentNode;
     newNode.previous.next = newNode;
     newNode.next.previous = newNode;
+    this.hashLink(newNode);
   }
 
   /**
@@ -410,7 +568,12 @@ public class LinkedList<T> implements Collection<T> {
       throw new NoSuchElementException();
     }
 
+    if (this.indexed) {
+      return this.removeIndexed(0);
+    }
+
     T element = this.head.element;
+    this.hashUnlink(this.head);
 
     if (this.length == 1) {
       this.clear();
@@ -435,16 +598,18 @@ public class LinkedList<T> implements Collection<T> {
       throw new NoSuchElementException();
     }
 
+    if (this.indexed) {
+      return this.removeIndexed(this.length - 1);
+    }
+
     T element = this.tail.element;
+    this.hashUnlink(this.tail);
 
     if (this.length == 1) {
       this.clear();
       return element;
     }
 
-    System.out.println(this);
-    System.out.println("tail: " + this.tail.element);
-
     this.length--;
     this.tail = this.tail.previous;
     this.tail.next = null;
@@ -492,16 +657,37 @@ public class LinkedList<T> implements Collection<T> {
       throw new IndexOutOfBoundsException();
     }
 
-    Node currentNode = this.head;
-    int currentIndex = 0;
+    return this.nodeAt(index).element;
+  }
 
-    while (currentIndex != index) {
-      currentIndex++;
-      currentNode = currentNode.next;
+  /**
+   * Removes and returns the element at the specified position in this list.
+   *
+   * @param index the index of the element to be removed
+   * @return the element previously at the specified position
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  public T removeAt(int index) {
+    if (index < 0 || index >= this.length) {
+      throw new IndexOutOfBoundsException();
     }
 
-    return currentNode.element;
+    if (this.indexed) {
+      return this.removeIndexed(index);
+    }
+
+    if (index == 0) {
+      return this.removeFirst();
+    }
 
+    if (index == this.length - 1) {
+      return this.removeLast();
+    }
+
+    Node node = this.nodeAt(index);
+    this.unlink(node);
+
+    return node.element;
   }
 
   /**
@@ -511,7 +697,7 @@ public class LinkedList<T> implements Collection<T> {
    */
   public LinkedList<T> copy() {
     Node currentNode = this.head;
-    LinkedList<T> newList = new LinkedList<T>();
+    LinkedList<T> newList = new LinkedList<T>(this.indexed, this.hashIndex != null);
 
     while (currentNode != null) {
       newList.add(currentNode.element);
@@ -528,7 +714,7 @@ public class LinkedList<T> implements Collection<T> {
    */
   public LinkedList<T> reverse() {
     Node currentNode = this.head;
-    LinkedList<T> newList = new LinkedList<T>();
+    LinkedList<T> newList = new LinkedList<T>(this.indexed, this.hashIndex != null);
 
     while (currentNode != null) {
       newList.addStart(currentNode.element);
@@ -547,6 +733,20 @@ public class LinkedList<T> implements Collection<T> {
    *         list, or -1 if this list does not contain the element
    */
   public int indexOf(T element) {
+    if (this.hashIndex != null) {
+      HashEntry entry = this.hashIndex.get(element);
+
+      if (entry == null) {
+        return -1;
+      }
+
+      int index = -1;
+      for (Node node = entry.first; node != null; node = node.previous) {
+        index++;
+      }
+      return index;
+    }
+
     Node currentNode = this.head;
     int currentIndex = 0;
 
@@ -569,4 +769,317 @@ public class LinkedList<T> implements Collection<T> {
   public IteratorLinkedList<T> iteratorLinkedList() {
     return new IteratorLL();
   }
+
+  /**
+   * Creates a node for the specified element, of the kind this list uses.
+   *
+   * @param element the element to be stored
+   * @return the new node
+   */
+  private Node newNode(T element) {
+    return this.hashIndex != null ? new HashedNode(element) : new Node(element);
+  }
+
+  /**
+   * Unlinks the specified node of a list without a skip list index.
+   *
+   * @param node the node to be unlinked
+   */
+  private void unlink(Node node) {
+    this.hashUnlink(node);
+
+    if (node.previous == null) {
+      this.head = node.next;
+    } else {
+      node.previous.next = node.next;
+    }
+
+    if (node.next == null) {
+      this.tail = node.previous;
+    } else {
+      node.next.previous = node.previous;
+    }
+    this.length--;
+  }
+
+  /**
+   * Records a node that was just linked into the list in the hash index,
+   * keeping the nodes with equal elements chained in list order. A node linked
+   * in the middle of the list looks outwards for its nearest equal neighbour.
+   *
+   * @param node the node that was linked
+   */
+  private void hashLink(Node node) {
+    if (this.hashIndex == null) {
+      return;
+    }
+
+    HashedNode hashedNode = (HashedNode) node;
+    HashEntry entry = this.hashIndex.get(node.element);
+
+    if (entry == null) {
+      this.hashIndex.put(node.element, new HashEntry(hashedNode));
+      return;
+    }
+
+    HashedNode before;
+
+    if (node.next == null) {
+      before = entry.last;
+    } else if (node.previous == null) {
+      before = null;
+    } else {
+      before = this.previousEqual(node);
+    }
+
+    HashedNode after = before == null ? entry.first : before.nextEqual;
+    hashedNode.previousEqual = before;
+    hashedNode.nextEqual = after;
+
+    if (before == null) {
+      entry.first = hashedNode;
+    } else {
+      before.nextEqual = hashedNode;
+    }
+
+    if (after == null) {
+      entry.last = hashedNode;
+    } else {
+      after.previousEqual = hashedNode;
+    }
+  }
+
+  /**
+   * Finds the closest node before the specified one holding an equal element,
+   * walking both directions at once. Some other node must hold an equal
+   * element.
+   *
+   * @param node the node whose equal predecessor is searched
+   * @return the equal predecessor, or null if the node is the first one
+   */
+  private HashedNode previousEqual(Node node) {
+    Node backward = node.previous;
+    Node forward = node.next;
+
+    while (true) {
+      if (backward != null) {
+        if (backward.element.equals(node.element)) {
+          return (HashedNode) backward;
+        }
+        backward = backward.previous;
+      }
+
+      if (forward != null) {
+        if (forward.element.equals(node.element)) {
+          return ((HashedNode) forward).previousEqual;
+        }
+        forward = forward.next;
+      }
+    }
+  }
+
+  /**
+   * Removes a node that is about to be unlinked from the hash index.
+   *
+   * @param node the node being unlinked
+   */
+  private void hashUnlink(Node node) {
+    if (this.hashIndex == null) {
+      return;
+    }
+
+    HashedNode hashedNode = (HashedNode) node;
+    HashEntry entry = this.hashIndex.get(node.element);
+
+    if (hashedNode.previousEqual == null) {
+      entry.first = hashedNode.nextEqual;
+    } else {
+      hashedNode.previousEqual.nextEqual = hashedNode.nextEqual;
+    }
+
+    if (hashedNode.nextEqual == null) {
+      entry.last = hashedNode.previousEqual;
+    } else {
+      hashedNode.nextEqual.previousEqual = hashedNode.previousEqual;
+    }
+
+    if (entry.first == null) {
+      this.hashIndex.remove(node.element);
+    }
+  }
+
+  /**
+   * Returns the node at the specified position, which must be in range. The
+   * skip list index is used when present; otherwise the list is walked from
+   * whichever end is closer.
+   *
+   * @param index the position of the node
+   * @return the node at that position
+   */
+  private Node nodeAt(int index) {
+    if (this.indexed) {
+      IndexNode entry = this.indexHead;
+      int position = -1;
+
+      while (entry != null) {
+        while (entry.right != null && position + entry.width <= index) {
+          position += entry.width;
+          entry = entry.right;
+        }
+
+        if (entry.down == null) {
+          break;
+        }
+        entry = entry.down;
+      }
+
+      Node node = entry == null || entry.node == null ? this.head : entry.node;
+      for (int i = Math.max(position, 0); i < index; i++) {
+        node = node.next;
+      }
+      return node;
+    }
+
+    if (index < this.length >> 1) {
+      Node node = this.head;
+      for (int i = 0; i < index; i++) {
+        node = node.next;
+      }
+      return node;
+    }
+
+    Node node = this.tail;
+    for (int i = this.length - 1; i > index; i--) {
+      node = node.previous;
+    }
+    return node;
+  }
+
+  /**
+   * Finds, on every level of the index, the last entry before the specified
+   * position, and stores the entries and their positions in
+   * {@code predecessors} and {@code positions}, indexed by level with 0 at the
+   * bottom.
+   *
+   * @param index the position being inserted at or removed
+   */
+  private void findPredecessors(int index) {
+    IndexNode[] predecessors = this.predecessors;
+    int[] positions = this.positions;
+    IndexNode entry = this.indexHead;
+    int position = -1;
+
+    for (int level = this.indexLevels - 1; level >= 0; level--) {
+      while (entry.right != null && position + entry.width < index) {
+        position += entry.width;
+        entry = entry.right;
+      }
+
+      predecessors[level] = entry;
+      positions[level] = position;
+      entry = entry.down;
+    }
+  }
+
+  /**
+   * Links the node at the specified position and records it on a random
+   * number of index levels, each one with half the chance of the one below.
+   *
+   * @param index   the position of the new node, from 0 to the length
+   * @param newNode the node to be linked
+   */
+  private void insertIndexed(int index, Node newNode) {
+    this.findPredecessors(index);
+    IndexNode[] predecessors = this.predecessors;
+    int[] positions = this.positions;
+
+    Node successor = index == this.length ? null : this.nodeAt(index);
+    newNode.next = successor;
+    newNode.previous = successor == null ? this.tail : successor.previous;
+
+    if (newNode.previous == null) {
+      this.head = newNode;
+    } else {
+      newNode.previous.next = newNode;
+    }
+
+    if (successor == null) {
+      this.tail = newNode;
+    } else {
+      successor.previous = newNode;
+    }
+    this.length++;
+
+    int height = Math.min(Integer.numberOfTrailingZeros(~ThreadLocalRandom.current().nextInt()),
+        MAX_INDEX_LEVELS);
+
+    while (this.indexLevels < height) {
+      this.indexHead = new IndexNode(null, this.indexHead);
+      predecessors[this.indexLevels] = this.indexHead;
+      positions[this.indexLevels] = -1;
+      this.indexLevels++;
+    }
+
+    IndexNode below = null;
+    for (int level = 0; level < this.indexLevels; level++) {
+      IndexNode predecessor = predecessors[level];
+
+      if (level >= height) {
+        predecessor.width++;
+        continue;
+      }
+
+      IndexNode entry = new IndexNode(newNode, below);
+      entry.right = predecessor.right;
+      entry.width = positions[level] + predecessor.width + 1 - index;
+      predecessor.right = entry;
+      predecessor.width = index - positions[level];
+      below = entry;
+    }
+  }
+
+  /**
+   * Unlinks the node at the specified position and drops its index entries,
+   * along with any index levels left empty.
+   *
+   * @param index the position of the node, which must be in range
+   * @return the element of the removed node
+   */
+  private T removeIndexed(int index) {
+    this.findPredecessors(index);
+    IndexNode[] predecessors = this.predecessors;
+    int[] positions = this.positions;
+    Node node = this.nodeAt(index);
+
+    for (int level = 0; level < this.indexLevels; level++) {
+      IndexNode predecessor = predecessors[level];
+
+      if (predecessor.right != null && predecessor.right.node == node) {
+        predecessor.width += predecessor.right.width - 1;
+        predecessor.right = predecessor.right.right;
+      } else {
+        predecessor.width--;
+      }
+    }
+
+    while (this.indexHead != null && this.indexHead.right == null) {
+      this.indexHead = this.indexHead.down;
+      this.indexLevels--;
+    }
+
+    if (node.previous == null) {
+      this.head = node.next;
+    } else {
+      node.previous.next = node.next;
+    }
+
+    if (node.next == null) {
+      this.tail = node.previous;
+    } else {
+      node.next.previous = node.previous;
+    }
+    this.length--;
+
+    return node.element;
+  }
 }
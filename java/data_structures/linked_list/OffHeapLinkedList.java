@@ -0,0 +1,677 @@
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import collections.Collection;
+import collections.DirectBuffers;
+import collections.RecordCodec;
+
+/**
+ * A list offering the API of {@link LinkedList} whose elements are stored
+ * outside the Java heap as fixed-width records.
+ *
+ * Elements are serialized by a {@link RecordCodec} into a circular sequence
+ * of records spread over direct buffers of about a megabyte each, whose
+ * number is a power of two. Adding or removing at either end is O(1)
+ * amortized, access by position is O(1), and insertion or removal in the
+ * middle moves the records of whichever side of the position is shorter.
+ * Growing the list adds buffers and copies at most one buffer's worth of
+ * records. The garbage collector only sees one small object per buffer,
+ * however many records the list holds.
+ *
+ * Elements are decoded afresh on every read, so the list holds copies of the
+ * elements added to it. The list holds native memory until {@link #close()}
+ * is called, which frees it at once; any other operation then throws
+ * {@link IllegalStateException}.
+ *
+ * @param <T> the type of elements in this list
+ */
+public class OffHeapLinkedList<T> implements Collection<T>, AutoCloseable {
+
+  private static final int CHUNK_BYTES = 1 << 20;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  /**
+   * An iterator over the list. The cursor sits before the element at
+   * {@code index}.
+   */
+  private class IteratorOffHeapLL implements IteratorLinkedList<T> {
+
+    private int index;
+
+    /**
+     * Constructs a new iterator starting at the head of the list.
+     */
+    private IteratorOffHeapLL() {
+      this.start();
+    }
+
+    /**
+     * Returns {@code true} if the iteration has more elements.
+     *
+     * @return {@code true} if the iteration has more elements
+     */
+    @Override
+    public boolean hasNext() {
+      return this.index < length;
+    }
+
+    /**
+     * Returns the next element in the iteration.
+     *
+     * @return the next element in the iteration
+     * @throws NoSuchElementException if the iteration has no more elements
+     */
+    @Override
+    public T next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return elementAt(this.index++);
+    }
+
+    /**
+     * Returns {@code true} if the iteration has more elements when traversing in
+     * the reverse direction.
+     *
+     * @return {@code true} if the iteration has more elements when traversing in
+     *         the reverse direction
+     */
+    @Override
+    public boolean hasPrevious() {
+      return this.index > 0;
+    }
+
+    /**
+     * Returns the previous element in the iteration.
+     *
+     * @return the previous element in the iteration
+     * @throws NoSuchElementException if the iteration has no previous elements
+     */
+    @Override
+    public T previous() {
+      if (!this.hasPrevious()) {
+        throw new NoSuchElementException();
+      }
+
+      return elementAt(--this.index);
+    }
+
+    /**
+     * Resets the iterator to the start of the list.
+     */
+    @Override
+    public void start() {
+      this.index = 0;
+    }
+
+    /**
+     * Sets the iterator to the end of the list.
+     */
+    @Override
+    public void end() {
+      this.index = length;
+    }
+  }
+
+  private final RecordCodec<T> codec;
+  private final int recordSize;
+  private final int chunkShift;
+  private final int chunkMask;
+
+  private ByteBuffer[] chunks;
+  private int capacity;
+  private int head;
+  private int length;
+
+  /**
+   * Constructs an empty list storing its elements with the specified codec.
+   *
+   * @param codec the codec used to serialize the elements
+   * @throws IllegalArgumentException if the codec is null or its record size
+   *                                  is not positive
+   */
+  public OffHeapLinkedList(RecordCodec<T> codec) {
+    if (codec == null || codec.recordSize() <= 0) {
+      throw new IllegalArgumentException("Codec must have a positive record size");
+    }
+
+    this.codec = codec;
+    this.recordSize = codec.recordSize();
+    this.chunkShift = Integer.numberOfTrailingZeros(Integer.highestOneBit(Math.max(1, CHUNK_BYTES / this.recordSize)));
+    this.chunkMask = (1 << this.chunkShift) - 1;
+    this.chunks = new ByteBuffer[0];
+    this.capacity = 0;
+    this.head = 0;
+    this.length = 0;
+  }
+
+  /**
+   * Adds the specified element to the end of this list.
+   *
+   * @param element the element to be added
+   * @throws IllegalArgumentException if the element is null
+   * @throws IllegalStateException    if this list is closed
+   */
+  @Override
+  public void add(T element) {
+    this.addEnd(element);
+  }
+
+  /**
+   * Removes the first occurrence of the specified element from this list, if it
+   * is present.
+   *
+   * @param element the element to be removed
+   * @throws IllegalStateException if this list is closed
+   */
+  @Override
+  public void remove(T element) {
+    int index = this.indexOf(element);
+
+    if (index != -1) {
+      this.removeAt(index);
+    }
+  }
+
+  /**
+   * Returns {@code true} if this list contains the specified element.
+   *
+   * @param element the element whose presence in this list is to be tested
+   * @return {@code true} if this list contains the specified element
+   * @throws IllegalStateException if this list is closed
+   */
+  @Override
+  public boolean contains(T element) {
+    return this.indexOf(element) != -1;
+  }
+
+  /**
+   * Returns {@code true} if this list contains no elements.
+   *
+   * @return {@code true} if this list contains no elements
+   */
+  @Override
+  public boolean isEmpty() {
+    return this.length == 0;
+  }
+
+  /**
+   * Returns the number of elements in this list.
+   *
+   * @return the number of elements in this list
+   */
+  @Override
+  public int getElements() {
+    return this.length;
+  }
+
+  /**
+   * Removes all of the elements from this list, keeping its buffers.
+   *
+   * @throws IllegalStateException if this list is closed
+   */
+  @Override
+  public void clear() {
+    this.ensureOpen();
+    this.head = 0;
+    this.length = 0;
+  }
+
+  /**
+   * Frees the buffers of this list, returning their native memory right away;
+   * the list cannot be used afterwards. Closing a closed list has no effect.
+   */
+  @Override
+  public void close() {
+    if (this.chunks == null) {
+      return;
+    }
+
+    for (ByteBuffer chunk : this.chunks) {
+      DirectBuffers.free(chunk);
+    }
+    this.chunks = null;
+    this.capacity = 0;
+    this.head = 0;
+    this.length = 0;
+  }
+
+  /**
+   * Returns an iterator over the elements in this list in proper sequence.
+   *
+   * @return an iterator over the elements in this list in proper sequence
+   * @throws IllegalStateException if this list is closed
+   */
+  @Override
+  public Iterator<T> iterator() {
+    return this.iteratorLinkedList();
+  }
+
+  /**
+   * Returns a string representation of this list.
+   *
+   * @return a string representation of this list
+   * @throws IllegalStateException if this list is closed
+   */
+  @Override
+  public String toString() {
+    this.ensureOpen();
+    StringBuilder rep = new StringBuilder("[");
+
+    for (int i = 0; i < this.length; i++) {
+      if (i > 0) {
+        rep.append(", ");
+      }
+      rep.append(this.elementAt(i));
+    }
+
+    return rep.append(']').toString();
+  }
+
+  /**
+   * Compares the specified object with this list for equality.
+   *
+   * @param object the object to be compared for equality with this list
+   * @return {@code true} if the specified object is equal to this list
+   * @throws IllegalStateException if either list is closed
+   */
+  @Override
+  public boolean equals(Object object) {
+    if (object == null || this.getClass() != object.getClass()) {
+      return false;
+    }
+    @SuppressWarnings("unchecked")
+    OffHeapLinkedList<T> list = (OffHeapLinkedList<T>) object;
+    this.ensureOpen();
+    list.ensureOpen();
+
+    if (this.length != list.length) {
+      return false;
+    }
+
+    for (int i = 0; i < this.length; i++) {
+      if (!this.elementAt(i).equals(list.elementAt(i))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns a hash code for this list, consistent with {@link #equals(Object)}.
+   *
+   * @return a hash code computed from the elements of this list, in order
+   * @throws IllegalStateException if this list is closed
+   */
+  @Override
+  public int hashCode() {
+    this.ensureOpen();
+    int hash = 1;
+
+    for (int i = 0; i < this.length; i++) {
+      hash = 31 * hash + this.elementAt(i).hashCode();
+    }
+    return hash;
+  }
+
+  /**
+   * Returns the number of elements in this list.
+   *
+   * @return the number of elements in this list
+   */
+  public int getLength() {
+    return getElements();
+  }
+
+  /**
+   * Adds the specified element to the end of this list.
+   *
+   * @param element the element to be added
+   * @throws IllegalArgumentException if the element is null
+   * @throws IllegalStateException    if this list is closed
+   */
+  public void addEnd(T element) {
+    if (element == null) {
+      throw new IllegalArgumentException();
+    }
+    this.ensureOpen();
+
+    if (this.length == this.capacity) {
+      this.grow();
+    }
+
+    this.setElementAt(this.length, element);
+    this.length++;
+  }
+
+  /**
+   * Adds the specified element to the start of this list.
+   *
+   * @param element the element to be added
+   * @throws IllegalArgumentException if the element is null
+   * @throws IllegalStateException    if this list is closed
+   */
+  public void addStart(T element) {
+    if (element == null) {
+      throw new IllegalArgumentException();
+    }
+    this.ensureOpen();
+
+    if (this.length == this.capacity) {
+      this.grow();
+    }
+
+    this.head = (this.head - 1) & (this.capacity - 1);
+    this.setElementAt(0, element);
+    this.length++;
+  }
+
+  /**
+   * Inserts the specified element at the specified position in this list.
+   * Positions before the start or past the end add the element there.
+   *
+   * @param index   the index at which the specified element is to be inserted
+   * @param element the element to be inserted
+   * @throws IllegalArgumentException if the element is null
+   * @throws IllegalStateException    if this list is closed
+   */
+  public void insert(int index, T element) {
+    if (index <= 0) {
+      this.addStart(element);
+      return;
+    }
+
+    if (index >= this.length) {
+      this.addEnd(element);
+      return;
+    }
+
+    if (element == null) {
+      throw new IllegalArgumentException();
+    }
+    this.ensureOpen();
+
+    if (this.length == this.capacity) {
+      this.grow();
+    }
+
+    if (index < this.length >> 1) {
+      // move the records before the position one slot to the left
+      this.head = (this.head - 1) & (this.capacity - 1);
+      for (int i = 0; i < index; i++) {
+        this.moveRecord(i + 1, i);
+      }
+    } else {
+      for (int i = this.length; i > index; i--) {
+        this.moveRecord(i - 1, i);
+      }
+    }
+
+    this.setElementAt(index, element);
+    this.length++;
+  }
+
+  /**
+   * Removes and returns the first element from this list.
+   *
+   * @return the first element from this list
+   * @throws NoSuchElementException if this list is empty
+   * @throws IllegalStateException  if this list is closed
+   */
+  public T removeFirst() {
+    T element = this.getFirst();
+
+    this.head = (this.head + 1) & (this.capacity - 1);
+    this.length--;
+
+    return element;
+  }
+
+  /**
+   * Removes and returns the last element from this list.
+   *
+   * @return the last element from this list
+   * @throws NoSuchElementException if this list is empty
+   * @throws IllegalStateException  if this list is closed
+   */
+  public T removeLast() {
+    T element = this.getLast();
+
+    this.length--;
+
+    return element;
+  }
+
+  /**
+   * Removes and returns the element at the specified position in this list.
+   *
+   * @param index the index of the element to be removed
+   * @return the element previously at the specified position
+   * @throws IndexOutOfBoundsException if the index is out of range
+   * @throws IllegalStateException     if this list is closed
+   */
+  public T removeAt(int index) {
+    T element = this.get(index);
+
+    if (index < this.length >> 1) {
+      for (int i = index; i > 0; i--) {
+        this.moveRecord(i - 1, i);
+      }
+      this.head = (this.head + 1) & (this.capacity - 1);
+    } else {
+      for (int i = index; i < this.length - 1; i++) {
+        this.moveRecord(i + 1, i);
+      }
+    }
+
+    this.length--;
+    return element;
+  }
+
+  /**
+   * Returns the first element in this list.
+   *
+   * @return the first element in this list
+   * @throws NoSuchElementException if this list is empty
+   * @throws IllegalStateException  if this list is closed
+   */
+  public T getFirst() {
+    this.ensureOpen();
+
+    if (this.length == 0) {
+      throw new NoSuchElementException();
+    }
+
+    return this.elementAt(0);
+  }
+
+  /**
+   * Returns the last element in this list.
+   *
+   * @return the last element in this list
+   * @throws NoSuchElementException if this list is empty
+   * @throws IllegalStateException  if this list is closed
+   */
+  public T getLast() {
+    this.ensureOpen();
+
+    if (this.length == 0) {
+      throw new NoSuchElementException();
+    }
+
+    return this.elementAt(this.length - 1);
+  }
+
+  /**
+   * Returns the element at the specified position in this list.
+   *
+   * @param index the index of the element to be returned
+   * @return the element at the specified position in this list
+   * @throws IndexOutOfBoundsException if the index is out of range
+   * @throws IllegalStateException     if this list is closed
+   */
+  public T get(int index) {
+    this.ensureOpen();
+
+    if (index < 0 || index >= this.length) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    return this.elementAt(index);
+  }
+
+  /**
+   * Returns a copy of this list in new buffers. The records are copied as
+   * they are, without decoding them.
+   *
+   * @return a copy of this list
+   * @throws IllegalStateException if this list is closed
+   */
+  public OffHeapLinkedList<T> copy() {
+    this.ensureOpen();
+    OffHeapLinkedList<T> newList = new OffHeapLinkedList<>(this.codec);
+
+    for (int i = 0; i < this.length; i++) {
+      newList.appendRecord(this.chunkOf(i), this.offsetOf(i));
+    }
+
+    return newList;
+  }
+
+  /**
+   * Returns a new list that is the reverse of this list.
+   *
+   * @return a new list that is the reverse of this list
+   * @throws IllegalStateException if this list is closed
+   */
+  public OffHeapLinkedList<T> reverse() {
+    this.ensureOpen();
+    OffHeapLinkedList<T> newList = new OffHeapLinkedList<>(this.codec);
+
+    for (int i = this.length - 1; i >= 0; i--) {
+      newList.appendRecord(this.chunkOf(i), this.offsetOf(i));
+    }
+
+    return newList;
+  }
+
+  /**
+   * Returns the index of the first occurrence of the specified element in this
+   * list, or -1 if this list does not contain the element.
+   *
+   * @param element the element to search for
+   * @return the index of the first occurrence of the specified element in this
+   *         list, or -1 if this list does not contain the element
+   * @throws IllegalStateException if this list is closed
+   */
+  public int indexOf(T element) {
+    this.ensureOpen();
+
+    for (int i = 0; i < this.length; i++) {
+      if (this.elementAt(i).equals(element)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns an iterator over the elements in this list in proper sequence.
+   *
+   * @return an iterator over the elements in this list in proper sequence
+   * @throws IllegalStateException if this list is closed
+   */
+  public IteratorLinkedList<T> iteratorLinkedList() {
+    this.ensureOpen();
+    return new IteratorOffHeapLL();
+  }
+
+  private T elementAt(int index) {
+    return this.codec.decode(this.chunkOf(index), this.offsetOf(index));
+  }
+
+  private void setElementAt(int index, T element) {
+    this.codec.encode(element, this.chunkOf(index), this.offsetOf(index));
+  }
+
+  /**
+   * Copies the record at one position over the record at another.
+   *
+   * @param from the position of the record to be copied
+   * @param to   the position to be overwritten
+   */
+  private void moveRecord(int from, int to) {
+    this.chunkOf(to).put(this.offsetOf(to), this.chunkOf(from), this.offsetOf(from), this.recordSize);
+  }
+
+  /**
+   * Adds a record that is already encoded to the end of this list.
+   *
+   * @param source the buffer holding the record
+   * @param offset the offset of the record in the buffer
+   */
+  private void appendRecord(ByteBuffer source, int offset) {
+    if (this.length == this.capacity) {
+      this.grow();
+    }
+
+    this.chunkOf(this.length).put(this.offsetOf(this.length), source, offset, this.recordSize);
+    this.length++;
+  }
+
+  /**
+   * Returns the buffer holding the record at the specified position.
+   */
+  private ByteBuffer chunkOf(int index) {
+    return this.chunks[((this.head + index) & (this.capacity - 1)) >>> this.chunkShift];
+  }
+
+  /**
+   * Returns the offset of the record at the specified position inside its
+   * buffer.
+   */
+  private int offsetOf(int index) {
+    return ((this.head + index) & this.chunkMask) * this.recordSize;
+  }
+
+  /**
+   * Doubles the number of buffers of a full list. The buffers are reordered to
+   * start with the one holding the head, so only the records that wrapped
+   * around into the front of that buffer have to be copied, into the first of
+   * the new buffers.
+   */
+  private void grow() {
+    int count = this.chunks.length;
+    ByteBuffer[] newChunks = new ByteBuffer[count == 0 ? 1 : count << 1];
+
+    if ((long) newChunks.length << this.chunkShift > MAX_CAPACITY) {
+      throw new IllegalStateException("List capacity exceeded");
+    }
+
+    int first = this.head >>> this.chunkShift;
+    for (int i = 0; i < count; i++) {
+      newChunks[i] = this.chunks[(first + i) & (count - 1)];
+    }
+    for (int i = count; i < newChunks.length; i++) {
+      newChunks[i] = ByteBuffer.allocateDirect(this.recordSize << this.chunkShift);
+    }
+
+    int offset = this.head & this.chunkMask;
+    if (count > 0 && offset > 0) {
+      newChunks[count].put(0, newChunks[0], 0, offset * this.recordSize);
+    }
+
+    this.chunks = newChunks;
+    this.capacity = newChunks.length << this.chunkShift;
+    this.head = offset;
+  }
+
+  private void ensureOpen() {
+    if (this.chunks == null) {
+      throw new IllegalStateException("List is closed");
+    }
+  }
+}
@@ -0,0 +1,708 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import collections.Collection;
+
+/**
+ * An unrolled doubly linked list implementation of the Collection interface.
+ *
+ * Each node holds a small array of consecutive elements instead of a single
+ * one. A full node is split in two when an element is inserted into it, and a
+ * node that falls below a quarter full is merged with its successor when they
+ * fit together, so nodes stay reasonably dense. Scans read whole arrays at a
+ * time and the per-element overhead is a fraction of a regular node's, while
+ * the list keeps the API and bidirectional iterator of {@link LinkedList}.
+ *
+ * @param <T> the type of elements in this list
+ */
+public class UnrolledLinkedList<T> implements Collection<T> {
+
+  private static final int DEFAULT_NODE_CAPACITY = 32;
+
+  /**
+   * A node in the list, holding up to {@code nodeCapacity} elements.
+   */
+  private class Node {
+
+    private Object[] elements;
+    private int count;
+    private Node next;
+    private Node previous;
+
+    /**
+     * Constructs a new empty node.
+     */
+    private Node() {
+      this.elements = new Object[nodeCapacity];
+      this.count = 0;
+      this.next = null;
+      this.previous = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T get(int offset) {
+      return (T) this.elements[offset];
+    }
+
+    /**
+     * Inserts the element at the specified offset, shifting the following
+     * elements of this node to the right. The node must not be full.
+     */
+    private void insert(int offset, T element) {
+      System.arraycopy(this.elements, offset, this.elements, offset + 1, this.count - offset);
+      this.elements[offset] = element;
+      this.count++;
+    }
+
+    /**
+     * Removes the element at the specified offset, shifting the following
+     * elements of this node to the left.
+     */
+    private T remove(int offset) {
+      T element = this.get(offset);
+      System.arraycopy(this.elements, offset + 1, this.elements, offset, this.count - offset - 1);
+      this.elements[--this.count] = null;
+      return element;
+    }
+  }
+
+  /**
+   * A position in the list: a node and an offset inside it.
+   */
+  private class Position {
+
+    private final Node node;
+    private final int offset;
+
+    private Position(Node node, int offset) {
+      this.node = node;
+      this.offset = offset;
+    }
+  }
+
+  /**
+   * An iterator over the list. The cursor sits before the element at
+   * {@code offset} of {@code node}, or after the last element when
+   * {@code node} is null.
+   */
+  private class IteratorULL implements IteratorLinkedList<T> {
+
+    private Node node;
+    private int offset;
+
+    /**
+     * Constructs a new iterator starting at the head of the list.
+     */
+    private IteratorULL() {
+      this.start();
+    }
+
+    /**
+     * Returns {@code true} if the iteration has more elements.
+     *
+     * @return {@code true} if the iteration has more elements
+     */
+    @Override
+    public boolean hasNext() {
+      return this.node != null;
+    }
+
+    /**
+     * Returns the next element in the iteration.
+     *
+     * @return the next element in the iteration
+     * @throws NoSuchElementException if the iteration has no more elements
+     */
+    @Override
+    public T next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      T element = this.node.get(this.offset++);
+
+      if (this.offset == this.node.count) {
+        this.node = this.node.next;
+        this.offset = 0;
+      }
+
+      return element;
+    }
+
+    /**
+     * Returns {@code true} if the iteration has more elements when traversing in
+     * the reverse direction.
+     *
+     * @return {@code true} if the iteration has more elements when traversing in
+     *         the reverse direction
+     */
+    @Override
+    public boolean hasPrevious() {
+      if (this.node == null) {
+        return tail != null;
+      }
+
+      return this.offset > 0 || this.node.previous != null;
+    }
+
+    /**
+     * Returns the previous element in the iteration.
+     *
+     * @return the previous element in the iteration
+     * @throws NoSuchElementException if the iteration has no previous elements
+     */
+    @Override
+    public T previous() {
+      if (!this.hasPrevious()) {
+        throw new NoSuchElementException();
+      }
+
+      if (this.node == null) {
+        this.node = tail;
+        this.offset = tail.count - 1;
+      } else if (this.offset > 0) {
+        this.offset--;
+      } else {
+        this.node = this.node.previous;
+        this.offset = this.node.count - 1;
+      }
+
+      return this.node.get(this.offset);
+    }
+
+    /**
+     * Resets the iterator to the start of the list.
+     */
+    @Override
+    public void start() {
+      this.node = head;
+      this.offset = 0;
+    }
+
+    /**
+     * Sets the iterator to the end of the list.
+     */
+    @Override
+    public void end() {
+      this.node = null;
+      this.offset = 0;
+    }
+  }
+
+  private final int nodeCapacity;
+  private Node head;
+  private Node tail;
+  private int length = 0;
+
+  /**
+   * Constructs an empty list with the default number of elements per node.
+   */
+  public UnrolledLinkedList() {
+    this(DEFAULT_NODE_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty list holding up to the specified number of elements
+   * per node.
+   *
+   * @param nodeCapacity the number of elements each node can hold
+   * @throws IllegalArgumentException if the capacity is less than 2
+   */
+  public UnrolledLinkedList(int nodeCapacity) {
+    if (nodeCapacity < 2) {
+      throw new IllegalArgumentException("Node capacity must be at least 2");
+    }
+
+    this.nodeCapacity = nodeCapacity;
+  }
+
+  /**
+   * Adds the specified element to the end of this list.
+   *
+   * @param element the element to be added
+   */
+  @Override
+  public void add(T element) {
+    this.addEnd(element);
+  }
+
+  /**
+   * Removes the first occurrence of the specified element from this list, if it
+   * is present.
+   *
+   * @param element the element to be removed
+   */
+  @Override
+  public void remove(T element) {
+    for (Node node = this.head; node != null; node = node.next) {
+      for (int i = 0; i < node.count; i++) {
+        if (node.elements[i].equals(element)) {
+          this.removeAt(node, i);
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} if this list contains the specified element.
+   *
+   * @param element the element whose presence in this list is to be tested
+   * @return {@code true} if this list contains the specified element
+   */
+  @Override
+  public boolean contains(T element) {
+    return this.indexOf(element) != -1;
+  }
+
+  /**
+   * Returns {@code true} if this list contains no elements.
+   *
+   * @return {@code true} if this list contains no elements
+   */
+  @Override
+  public boolean isEmpty() {
+    return this.head == null;
+  }
+
+  /**
+   * Returns the number of elements in this list.
+   *
+   * @return the number of elements in this list
+   */
+  @Override
+  public int getElements() {
+    return this.length;
+  }
+
+  /**
+   * Removes all of the elements from this list.
+   */
+  @Override
+  public void clear() {
+    this.head = null;
+    this.tail = null;
+    this.length = 0;
+  }
+
+  /**
+   * Returns an iterator over the elements in this list in proper sequence.
+   *
+   * @return an iterator over the elements in this list in proper sequence
+   */
+  @Override
+  public Iterator<T> iterator() {
+    return new IteratorULL();
+  }
+
+  /**
+   * Returns a string representation of this list.
+   *
+   * @return a string representation of this list
+   */
+  @Override
+  public String toString() {
+    StringBuilder rep = new StringBuilder("[");
+
+    for (Node node = this.head; node != null; node = node.next) {
+      for (int i = 0; i < node.count; i++) {
+        if (rep.length() > 1) {
+          rep.append(", ");
+        }
+        rep.append(node.elements[i]);
+      }
+    }
+
+    return rep.append(']').toString();
+  }
+
+  /**
+   * Compares the specified object with this list for equality.
+   *
+   * @param object the object to be compared for equality with this list
+   * @return {@code true} if the specified object is equal to this list
+   */
+  @Override
+  public boolean equals(Object object) {
+    if (object == null || this.getClass() != object.getClass()) {
+      return false;
+    }
+    @SuppressWarnings("unchecked")
+    UnrolledLinkedList<T> list = (UnrolledLinkedList<T>) object;
+
+    if (this.length != list.length) {
+      return false;
+    }
+
+    Iterator<T> iteratorThis = this.iterator();
+    Iterator<T> iteratorObject = list.iterator();
+
+    while (iteratorThis.hasNext()) {
+      if (!iteratorThis.next().equals(iteratorObject.next())) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns a hash code for this list, consistent with {@link #equals(Object)}.
+   *
+   * @return a hash code computed from the elements of this list, in order
+   */
+  @Override
+  public int hashCode() {
+    int hash = 1;
+
+    for (T element : this) {
+      hash = 31 * hash + element.hashCode();
+    }
+    return hash;
+  }
+
+  /**
+   * Returns the number of elements in this list.
+   *
+   * @return the number of elements in this list
+   */
+  public int getLength() {
+    return getElements();
+  }
+
+  /**
+   * Adds the specified element to the end of this list.
+   *
+   * @param element the element to be added
+   */
+  public void addEnd(T element) {
+    if (element == null) {
+      throw new IllegalArgumentException();
+    }
+
+    if (this.tail == null || this.tail.count == this.nodeCapacity) {
+      this.linkAfter(this.tail, new Node());
+    }
+
+    this.tail.elements[this.tail.count++] = element;
+    this.length++;
+  }
+
+  /**
+   * Adds the specified element to the start of this list.
+   *
+   * @param element the element to be added
+   */
+  public void addStart(T element) {
+    if (element == null) {
+      throw new IllegalArgumentException();
+    }
+
+    if (this.head == null || this.head.count == this.nodeCapacity) {
+      this.linkAfter(null, new Node());
+    }
+
+    this.head.insert(0, element);
+    this.length++;
+  }
+
+  /**
+   * Inserts the specified element at the specified position in this list.
+   *
+   * @param index   the index at which the specified element is to be inserted
+   * @param element the element to be inserted
+   */
+  public void insert(int index, T element) {
+    if (element == null) {
+      throw new IllegalArgumentException();
+    }
+
+    if (index <= 0) {
+      this.addStart(element);
+      return;
+    }
+
+    if (index >= this.length) {
+      this.addEnd(element);
+      return;
+    }
+
+    Position position = this.positionOf(index);
+    Node node = position.node;
+    int offset = position.offset;
+
+    if (node.count == this.nodeCapacity) {
+      // split the full node, moving its upper half to a new successor
+      Node newNode = new Node();
+      int half = this.nodeCapacity >> 1;
+
+      newNode.count = node.count - half;
+      System.arraycopy(node.elements, half, newNode.elements, 0, newNode.count);
+      Arrays.fill(node.elements, half, node.count, null);
+      node.count = half;
+      this.linkAfter(node, newNode);
+
+      if (offset > half) {
+        node = newNode;
+        offset -= half;
+      }
+    }
+
+    node.insert(offset, element);
+    this.length++;
+  }
+
+  /**
+   * Removes and returns the first element from this list.
+   *
+   * @return the first element from this list
+   * @throws NoSuchElementException if this list is empty
+   */
+  public T removeFirst() {
+    if (this.head == null) {
+      throw new NoSuchElementException();
+    }
+
+    return this.removeAt(this.head, 0);
+  }
+
+  /**
+   * Removes and returns the last element from this list.
+   *
+   * @return the last element from this list
+   * @throws NoSuchElementException if this list is empty
+   */
+  public T removeLast() {
+    if (this.head == null) {
+      throw new NoSuchElementException();
+    }
+
+    return this.removeAt(this.tail, this.tail.count - 1);
+  }
+
+  /**
+   * Removes and returns the element at the specified position in this list.
+   *
+   * @param index the index of the element to be removed
+   * @return the element previously at the specified position
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  public T removeAt(int index) {
+    if (index < 0 || index >= this.length) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    Position position = this.positionOf(index);
+    return this.removeAt(position.node, position.offset);
+  }
+
+  /**
+   * Returns the first element in this list.
+   *
+   * @return the first element in this list
+   * @throws NoSuchElementException if this list is empty
+   */
+  public T getFirst() {
+    if (this.head == null) {
+      throw new NoSuchElementException();
+    }
+
+    return this.head.get(0);
+  }
+
+  /**
+   * Returns the last element in this list.
+   *
+   * @return the last element in this list
+   * @throws NoSuchElementException if this list is empty
+   */
+  public T getLast() {
+    if (this.head == null) {
+      throw new NoSuchElementException();
+    }
+
+    return this.tail.get(this.tail.count - 1);
+  }
+
+  /**
+   * Returns the element at the specified position in this list.
+   *
+   * @param index the index of the element to be returned
+   * @return the element at the specified position in this list
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  public T get(int index) {
+    if (index < 0 || index >= this.length) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    Position position = this.positionOf(index);
+    return position.node.get(position.offset);
+  }
+
+  /**
+   * Returns a shallow copy of this list.
+   *
+   * @return a shallow copy of this list
+   */
+  public UnrolledLinkedList<T> copy() {
+    UnrolledLinkedList<T> newList = new UnrolledLinkedList<>(this.nodeCapacity);
+
+    for (T element : this) {
+      newList.addEnd(element);
+    }
+
+    return newList;
+  }
+
+  /**
+   * Returns a new list that is the reverse of this list.
+   *
+   * @return a new list that is the reverse of this list
+   */
+  public UnrolledLinkedList<T> reverse() {
+    UnrolledLinkedList<T> newList = new UnrolledLinkedList<>(this.nodeCapacity);
+    IteratorLinkedList<T> iterator = this.iteratorLinkedList();
+    iterator.end();
+
+    while (iterator.hasPrevious()) {
+      newList.addEnd(iterator.previous());
+    }
+
+    return newList;
+  }
+
+  /**
+   * Returns the index of the first occurrence of the specified element in this
+   * list, or -1 if this list does not contain the element.
+   *
+   * @param element the element to search for
+   * @return the index of the first occurrence of the specified element in this
+   *         list, or -1 if this list does not contain the element
+   */
+  public int indexOf(T element) {
+    int index = 0;
+
+    for (Node node = this.head; node != null; node = node.next) {
+      for (int i = 0; i < node.count; i++) {
+        if (node.elements[i].equals(element)) {
+          return index + i;
+        }
+      }
+      index += node.count;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns an iterator over the elements in this list in proper sequence.
+   *
+   * @return an iterator over the elements in this list in proper sequence
+   */
+  public IteratorLinkedList<T> iteratorLinkedList() {
+    return new IteratorULL();
+  }
+
+  /**
+   * Finds the node and offset of the specified position, which must be in
+   * range, walking the nodes from whichever end of the list is closer.
+   *
+   * @param index the position to find
+   * @return the node holding the position and the offset inside it
+   */
+  private Position positionOf(int index) {
+    if (index < this.length >> 1) {
+      Node node = this.head;
+
+      while (index >= node.count) {
+        index -= node.count;
+        node = node.next;
+      }
+      return new Position(node, index);
+    }
+
+    Node node = this.tail;
+    int start = this.length - node.count;
+
+    while (index < start) {
+      node = node.previous;
+      start -= node.count;
+    }
+    return new Position(node, index - start);
+  }
+
+  /**
+   * Removes the element at the specified offset of the specified node. An
+   * emptied node is unlinked, and a node left under a quarter full absorbs
+   * its successor when both fit in one node.
+   *
+   * @param node   the node holding the element
+   * @param offset the offset of the element inside the node
+   * @return the removed element
+   */
+  private T removeAt(Node node, int offset) {
+    T element = node.remove(offset);
+    this.length--;
+
+    if (node.count == 0) {
+      this.unlink(node);
+      return element;
+    }
+
+    Node next = node.next;
+
+    if (node.count < this.nodeCapacity >> 2 && next != null && node.count + next.count <= this.nodeCapacity) {
+      System.arraycopy(next.elements, 0, node.elements, node.count, next.count);
+      node.count += next.count;
+      this.unlink(next);
+    }
+
+    return element;
+  }
+
+  /**
+   * Links the new node after the specified one, or at the start of the list
+   * when it is null.
+   *
+   * @param node    the node to link after, or null
+   * @param newNode the node to be linked
+   */
+  private void linkAfter(Node node, Node newNode) {
+    Node next = node == null ? this.head : node.next;
+
+    newNode.previous = node;
+    newNode.next = next;
+
+    if (node == null) {
+      this.head = newNode;
+    } else {
+      node.next = newNode;
+    }
+
+    if (next == null) {
+      this.tail = newNode;
+    } else {
+      next.previous = newNode;
+    }
+  }
+
+  /**
+   * Unlinks the specified node from the list.
+   *
+   * @param node the node to be unlinked
+   */
+  private void unlink(Node node) {
+    if (node.previous == null) {
+      this.head = node.next;
+    } else {
+      node.previous.next = node.next;
+    }
+
+    if (node.next == null) {
+      this.tail = node.previous;
+    } else {
+      node.next.previous = node.previous;
+    }
+  }
+}
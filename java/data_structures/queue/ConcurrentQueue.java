@@ -0,0 +1,317 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free queue that any number of threads may use to enqueue and
+ * dequeue concurrently.
+ *
+ * Elements live in a ring buffer whose capacity is a power of two. Each slot
+ * carries a sequence number telling whether it is ready to be written for a
+ * given lap or ready to be read, so producers and consumers only contend on a
+ * single compare-and-set of the tail or head counter and never take a lock.
+ * Besides the {@code enqueue/dequeue/peek} surface of {@link Queue}, it offers
+ * non-blocking {@code offer/poll} and blocking {@code put/take} with optional
+ * timeouts, which wait by spinning and then parking with a growing backoff.
+ *
+ * @param <T> the type of elements held in this queue
+ */
+public class ConcurrentQueue<T> {
+
+  private static final int MAX_CAPACITY = 1 << 30;
+  private static final int SPINS = 64;
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Object[] buffer;
+  private final AtomicLongArray sequence;
+  private final int mask;
+  private final AtomicLong head;
+  private final AtomicLong tail;
+
+  /**
+   * Constructs an empty queue that holds at least the specified number of
+   * elements. The capacity is rounded up to a power of two.
+   *
+   * @param capacity the minimum capacity of the queue
+   * @throws IllegalArgumentException if the capacity is not positive or too
+   *                                  large
+   */
+  public ConcurrentQueue(int capacity) {
+    if (capacity < 1 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+    }
+
+    // two slots at least, so "written" and "free for the next lap" differ
+    int length = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+
+    this.buffer = new Object[length];
+    this.sequence = new AtomicLongArray(length);
+    this.mask = length - 1;
+    this.head = new AtomicLong();
+    this.tail = new AtomicLong();
+
+    for (int i = 0; i < length; i++) {
+      this.sequence.set(i, i);
+    }
+  }
+
+  /**
+   * Adds the specified element to the end of the queue.
+   *
+   * @param element the element to be added to the queue
+   * @throws IllegalArgumentException if the element is null
+   * @throws IllegalStateException    if the queue is full
+   */
+  public void enqueue(T element) {
+    if (!this.offer(element)) {
+      throw new IllegalStateException("Queue is full");
+    }
+  }
+
+  /**
+   * Adds the specified element to the end of the queue if there is room for
+   * it, without waiting.
+   *
+   * @param element the element to be added to the queue
+   * @return true if the element was added, false if the queue is full
+   * @throws IllegalArgumentException if the element is null
+   */
+  public boolean offer(T element) {
+    if (element == null) {
+      throw new IllegalArgumentException("Element cannot be null");
+    }
+
+    long position = this.tail.get();
+
+    while (true) {
+      int index = (int) position & this.mask;
+      long difference = this.sequence.getAcquire(index) - position;
+
+      if (difference == 0) {
+        if (this.tail.compareAndSet(position, position + 1)) {
+          this.buffer[index] = element;
+          this.sequence.setRelease(index, position + 1);
+          return true;
+        }
+        position = this.tail.get();
+      } else if (difference < 0) {
+        // the slot still holds the element of the previous lap
+        return false;
+      } else {
+        position = this.tail.get();
+      }
+    }
+  }
+
+  /**
+   * Adds the specified element to the end of the queue, waiting up to the
+   * specified time for room to become available.
+   *
+   * @param element the element to be added to the queue
+   * @param timeout how long to wait before giving up
+   * @param unit    the unit of the timeout
+   * @return true if the element was added, false if the time ran out
+   * @throws IllegalArgumentException if the element is null
+   * @throws InterruptedException     if interrupted while waiting
+   */
+  public boolean offer(T element, long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+    for (int attempt = 0; !this.offer(element); attempt++) {
+      if (!ConcurrentQueue.backoff(attempt, true, deadline)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Adds the specified element to the end of the queue, waiting as long as
+   * necessary for room to become available.
+   *
+   * @param element the element to be added to the queue
+   * @throws IllegalArgumentException if the element is null
+   * @throws InterruptedException     if interrupted while waiting
+   */
+  public void put(T element) throws InterruptedException {
+    for (int attempt = 0; !this.offer(element); attempt++) {
+      ConcurrentQueue.backoff(attempt, false, 0);
+    }
+  }
+
+  /**
+   * Removes and returns the element at the front of the queue.
+   *
+   * @return the element at the front of the queue
+   * @throws NoSuchElementException if the queue is empty
+   */
+  public T dequeue() {
+    T element = this.poll();
+
+    if (element == null) {
+      throw new NoSuchElementException("Queue is empty");
+    }
+    return element;
+  }
+
+  /**
+   * Removes and returns the element at the front of the queue, without
+   * waiting.
+   *
+   * @return the element at the front of the queue, or null if it is empty
+   */
+  @SuppressWarnings("unchecked")
+  public T poll() {
+    long position = this.head.get();
+
+    while (true) {
+      int index = (int) position & this.mask;
+      long difference = this.sequence.getAcquire(index) - (position + 1);
+
+      if (difference == 0) {
+        if (this.head.compareAndSet(position, position + 1)) {
+          T element = (T) this.buffer[index];
+          this.buffer[index] = null;
+          // free the slot for the producer of the next lap
+          this.sequence.setRelease(index, position + this.mask + 1);
+          return element;
+        }
+        position = this.head.get();
+      } else if (difference < 0) {
+        return null;
+      } else {
+        position = this.head.get();
+      }
+    }
+  }
+
+  /**
+   * Removes and returns the element at the front of the queue, waiting up to
+   * the specified time for one to become available.
+   *
+   * @param timeout how long to wait before giving up
+   * @param unit    the unit of the timeout
+   * @return the element at the front of the queue, or null if the time ran out
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    T element;
+
+    for (int attempt = 0; (element = this.poll()) == null; attempt++) {
+      if (!ConcurrentQueue.backoff(attempt, true, deadline)) {
+        return null;
+      }
+    }
+    return element;
+  }
+
+  /**
+   * Removes and returns the element at the front of the queue, waiting as long
+   * as necessary for one to become available.
+   *
+   * @return the element at the front of the queue
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public T take() throws InterruptedException {
+    T element;
+
+    for (int attempt = 0; (element = this.poll()) == null; attempt++) {
+      ConcurrentQueue.backoff(attempt, false, 0);
+    }
+    return element;
+  }
+
+  /**
+   * Returns the element at the front of the queue without removing it. Under
+   * concurrent dequeues the element may already be gone when this returns.
+   *
+   * @return the element at the front of the queue
+   * @throws NoSuchElementException if the queue is empty
+   */
+  public T peek() {
+    while (true) {
+      long position = this.head.get();
+      int index = (int) position & this.mask;
+
+      if (this.sequence.getAcquire(index) - (position + 1) < 0) {
+        throw new NoSuchElementException("Queue is empty");
+      }
+
+      @SuppressWarnings("unchecked")
+      T element = (T) this.buffer[index];
+
+      // retry if a consumer took the slot while it was being read
+      if (element != null && this.head.get() == position) {
+        return element;
+      }
+    }
+  }
+
+  /**
+   * Checks if the queue is empty.
+   *
+   * @return true if the queue is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return this.size() == 0;
+  }
+
+  /**
+   * Returns the number of elements in the queue. The value is a snapshot and
+   * may be stale as soon as it is returned.
+   *
+   * @return the number of elements in the queue
+   */
+  public int size() {
+    while (true) {
+      long head = this.head.get();
+      long tail = this.tail.get();
+
+      if (this.head.get() == head) {
+        return (int) Math.max(0, Math.min(tail - head, this.buffer.length));
+      }
+    }
+  }
+
+  /**
+   * Returns the number of elements the queue can hold.
+   *
+   * @return the capacity of the queue
+   */
+  public int capacity() {
+    return this.buffer.length;
+  }
+
+  /**
+   * Waits before the next attempt of a blocking operation: a few busy spins
+   * first, then parking for a period that doubles up to a millisecond.
+   *
+   * @param attempt  the number of failed attempts so far
+   * @param timed    whether the wait is bounded by the deadline
+   * @param deadline the {@link System#nanoTime()} after which to give up
+   * @return false if the deadline has passed, true otherwise
+   * @throws InterruptedException if the thread was interrupted
+   */
+  private static boolean backoff(int attempt, boolean timed, long deadline) throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+
+    long remaining = timed ? deadline - System.nanoTime() : MAX_PARK_NANOS;
+    if (remaining <= 0) {
+      return false;
+    }
+
+    if (attempt < SPINS) {
+      Thread.onSpinWait();
+      return true;
+    }
+
+    long park = Math.min(MAX_PARK_NANOS, 1L << Math.min(attempt - SPINS, 20));
+    LockSupport.parkNanos(Math.min(park, remaining));
+    return true;
+  }
+}
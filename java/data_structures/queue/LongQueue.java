@@ -0,0 +1,240 @@
+import java.util.NoSuchElementException;
+
+/**
+ * A queue of primitive long values offering the API of {@link Queue}.
+ *
+ * Values are stored unboxed in a growable ring buffer whose capacity is a
+ * power of two, so no value is ever boxed and nothing is allocated per value.
+ */
+public class LongQueue {
+
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private long[] array;
+  private int head;
+  private int size;
+
+  /**
+   * Constructs an empty queue.
+   */
+  public LongQueue() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty queue with room for the specified number of values
+   * before growing.
+   *
+   * @param capacity the initial capacity of the queue
+   * @throws IllegalArgumentException if the capacity is negative
+   */
+  public LongQueue(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative");
+    }
+
+    this.array = new long[LongQueue.tableSize(capacity)];
+    this.head = 0;
+    this.size = 0;
+  }
+
+  /**
+   * Adds the specified value to the end of the queue.
+   *
+   * @param value the value to be added to the queue
+   */
+  public void enqueue(long value) {
+    if (this.size == this.array.length) {
+      this.grow(this.size + 1);
+    }
+
+    this.array[(this.head + this.size) & (this.array.length - 1)] = value;
+    this.size++;
+  }
+
+  /**
+   * Adds all the values of the specified array to the end of the queue,
+   * growing the buffer at most once.
+   *
+   * @param values the values to be added to the queue
+   */
+  public void enqueueAll(long[] values) {
+    if (this.size + values.length > this.array.length) {
+      this.grow(this.size + values.length);
+    }
+
+    int mask = this.array.length - 1;
+    int tail = this.head + this.size;
+
+    for (long value : values) {
+      this.array[tail++ & mask] = value;
+    }
+    this.size += values.length;
+  }
+
+  /**
+   * Removes and returns the value at the front of the queue.
+   *
+   * @return the value at the front of the queue
+   * @throws NoSuchElementException if the queue is empty
+   */
+  public long dequeue() {
+    if (this.size == 0) {
+      throw new NoSuchElementException("Queue is empty");
+    }
+
+    long value = this.array[this.head];
+    this.head = (this.head + 1) & (this.array.length - 1);
+    this.size--;
+
+    return value;
+  }
+
+  /**
+   * Removes values from the front of the queue into the specified array until
+   * it is full or the queue is empty.
+   *
+   * @param target the array receiving the values, front first
+   * @return the number of values moved
+   */
+  public int drainTo(long[] target) {
+    int count = Math.min(target.length, this.size);
+    int firstPart = Math.min(count, this.array.length - this.head);
+
+    System.arraycopy(this.array, this.head, target, 0, firstPart);
+    System.arraycopy(this.array, 0, target, firstPart, count - firstPart);
+
+    this.head = (this.head + count) & (this.array.length - 1);
+    this.size -= count;
+
+    return count;
+  }
+
+  /**
+   * Returns the value at the front of the queue without removing it.
+   *
+   * @return the value at the front of the queue
+   * @throws NoSuchElementException if the queue is empty
+   */
+  public long peek() {
+    if (this.size == 0) {
+      throw new NoSuchElementException("Queue is empty");
+    }
+
+    return this.array[this.head];
+  }
+
+  /**
+   * Checks if the queue is empty.
+   *
+   * @return true if the queue is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the number of values in the queue.
+   *
+   * @return the number of values in the queue
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns a string representation of the queue.
+   *
+   * @return a string representation of the queue
+   */
+  @Override
+  public String toString() {
+    StringBuilder rep = new StringBuilder();
+
+    for (int i = this.size - 1; i >= 0; i--) {
+      rep.append(this.valueAt(i)).append(' ');
+    }
+    return rep.toString().trim();
+  }
+
+  /**
+   * Compares the specified object with this queue for equality.
+   *
+   * @param object the object to be compared for equality with this queue
+   * @return true if the specified object is equal to this queue
+   */
+  @Override
+  public boolean equals(Object object) {
+    if (object == null || getClass() != object.getClass()) {
+      return false;
+    }
+    LongQueue queue = (LongQueue) object;
+
+    if (this.size != queue.size) {
+      return false;
+    }
+
+    for (int i = 0; i < this.size; i++) {
+      if (this.valueAt(i) != queue.valueAt(i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns a hash code for this queue, consistent with {@link #equals(Object)}.
+   *
+   * @return a hash code computed from the elements of this queue, in order
+   */
+  @Override
+  public int hashCode() {
+    int hash = 1;
+
+    for (int i = 0; i < this.size; i++) {
+      hash = 31 * hash + Long.hashCode(this.valueAt(i));
+    }
+    return hash;
+  }
+
+  private long valueAt(int offset) {
+    return this.array[(this.head + offset) & (this.array.length - 1)];
+  }
+
+  /**
+   * Moves the values into a larger buffer with room for at least the
+   * specified number of values, unwrapping them to start at index 0.
+   *
+   * @param capacity the minimum capacity required
+   */
+  private void grow(int capacity) {
+    if (capacity > MAX_CAPACITY || capacity < 0) {
+      throw new IllegalStateException("Queue capacity exceeded");
+    }
+
+    long[] newArray = new long[LongQueue.tableSize(Math.max(capacity, this.array.length << 1))];
+    int firstPart = Math.min(this.size, this.array.length - this.head);
+
+    System.arraycopy(this.array, this.head, newArray, 0, firstPart);
+    System.arraycopy(this.array, 0, newArray, firstPart, this.size - firstPart);
+
+    this.array = newArray;
+    this.head = 0;
+  }
+
+  /**
+   * Returns the smallest power of two not less than the specified capacity.
+   *
+   * @param capacity the requested capacity
+   * @return the buffer length to allocate
+   */
+  private static int tableSize(int capacity) {
+    if (capacity <= 1) {
+      return 1;
+    }
+
+    return capacity >= MAX_CAPACITY ? MAX_CAPACITY : Integer.highestOneBit(capacity - 1) << 1;
+  }
+}
@@ -0,0 +1,356 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+import collections.Collection;
+import collections.DirectBuffers;
+import collections.RecordCodec;
+
+/**
+ * A Queue whose elements are stored outside the Java heap as fixed-width
+ * records.
+ *
+ * Elements are serialized by a {@link RecordCodec} into a chain of direct
+ * buffers of about a megabyte each. Enqueue writes into the last buffer and
+ * appends a new one when it is full; dequeue reads from the first buffer and
+ * drops it once it has been consumed, so memory follows the size of the queue
+ * and nothing is ever copied. The garbage collector only sees one small object
+ * per buffer, however many records the queue holds.
+ *
+ * The queue holds native memory until {@link #close()} is called, which frees
+ * it at once; any other operation then throws {@link IllegalStateException}.
+ * Buffers the queue stops using while open, once drained or cleared, are
+ * freed as well.
+ *
+ * @param <T> the type of elements held in this queue
+ */
+public class OffHeapQueue<T> implements AutoCloseable {
+
+  private static final int CHUNK_BYTES = 1 << 20;
+
+  private final RecordCodec<T> codec;
+  private final int recordSize;
+  private final int chunkShift;
+  private final int chunkMask;
+
+  private ArrayList<ByteBuffer> chunks;
+  private ByteBuffer spareChunk;
+  private int head;
+  private int tail;
+  private long size;
+
+  /**
+   * Constructs an empty queue storing its elements with the specified codec.
+   *
+   * @param codec the codec used to serialize the elements
+   * @throws IllegalArgumentException if the codec is null or its record size
+   *                                  is not positive
+   */
+  public OffHeapQueue(RecordCodec<T> codec) {
+    if (codec == null || codec.recordSize() <= 0) {
+      throw new IllegalArgumentException("Codec must have a positive record size");
+    }
+
+    this.codec = codec;
+    this.recordSize = codec.recordSize();
+    this.chunkShift = Integer.numberOfTrailingZeros(Integer.highestOneBit(Math.max(1, CHUNK_BYTES / this.recordSize)));
+    this.chunkMask = (1 << this.chunkShift) - 1;
+    this.chunks = new ArrayList<>();
+    this.spareChunk = null;
+    this.head = 0;
+    this.tail = 0;
+    this.size = 0;
+  }
+
+  /**
+   * Adds the specified element to the end of the queue.
+   *
+   * @param element the element to be added to the queue
+   * @throws IllegalArgumentException if the element is null
+   * @throws IllegalStateException    if the queue is closed
+   */
+  public void enqueue(T element) {
+    if (element == null) {
+      throw new IllegalArgumentException("Element cannot be null");
+    }
+    this.ensureOpen();
+
+    if (this.chunks.isEmpty() || this.tail > this.chunkMask) {
+      this.chunks.add(this.newChunk());
+      this.tail = 0;
+    }
+
+    this.codec.encode(element, this.chunks.get(this.chunks.size() - 1), this.tail * this.recordSize);
+    this.tail++;
+    this.size++;
+  }
+
+  /**
+   * Adds all the specified elements to the end of the queue, in iteration
+   * order.
+   *
+   * @param elements the elements to be added to the queue
+   * @throws IllegalArgumentException if any element is null; the elements
+   *                                  before it are still added
+   * @throws IllegalStateException    if the queue is closed
+   */
+  public void enqueueAll(Iterable<? extends T> elements) {
+    for (T element : elements) {
+      this.enqueue(element);
+    }
+  }
+
+  /**
+   * Adds all the elements of the specified array to the end of the queue.
+   *
+   * @param elements the elements to be added to the queue
+   * @throws IllegalArgumentException if any element is null; nothing is added
+   *                                  in that case
+   * @throws IllegalStateException    if the queue is closed
+   */
+  public void enqueueAll(T[] elements) {
+    for (T element : elements) {
+      if (element == null) {
+        throw new IllegalArgumentException("Element cannot be null");
+      }
+    }
+
+    for (T element : elements) {
+      this.enqueue(element);
+    }
+  }
+
+  /**
+   * Removes and returns the element at the front of the queue.
+   *
+   * @return the element at the front of the queue
+   * @throws NoSuchElementException if the queue is empty
+   * @throws IllegalStateException  if the queue is closed
+   */
+  public T dequeue() {
+    this.ensureOpen();
+
+    if (this.size == 0) {
+      throw new NoSuchElementException("Queue is empty");
+    }
+
+    T element = this.codec.decode(this.chunks.get(0), this.head * this.recordSize);
+    this.head++;
+    this.size--;
+
+    if (this.size == 0) {
+      // the only chunk left is reused from its start
+      this.head = 0;
+      this.tail = 0;
+    } else if (this.head > this.chunkMask) {
+      DirectBuffers.free(this.spareChunk);
+      this.spareChunk = this.chunks.remove(0);
+      this.head = 0;
+    }
+
+    return element;
+  }
+
+  /**
+   * Removes every element of the queue and adds them, front first, to the
+   * specified collection.
+   *
+   * @param collection the collection receiving the elements
+   * @return the number of elements moved
+   * @throws IllegalStateException if the queue is closed
+   */
+  public int drainTo(Collection<? super T> collection) {
+    return this.drainTo(collection, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Removes at most the specified number of elements from the front of the
+   * queue and adds them, in order, to the specified collection.
+   *
+   * @param collection  the collection receiving the elements
+   * @param maxElements the maximum number of elements to move
+   * @return the number of elements moved
+   * @throws IllegalStateException if the queue is closed
+   */
+  public int drainTo(Collection<? super T> collection, int maxElements) {
+    this.ensureOpen();
+    int count = (int) Math.min(Math.max(maxElements, 0), this.size);
+
+    for (int i = 0; i < count; i++) {
+      collection.add(this.dequeue());
+    }
+
+    return count;
+  }
+
+  /**
+   * Returns the element at the front of the queue without removing it.
+   *
+   * @return the element at the front of the queue
+   * @throws NoSuchElementException if the queue is empty
+   * @throws IllegalStateException  if the queue is closed
+   */
+  public T peek() {
+    this.ensureOpen();
+
+    if (this.size == 0) {
+      throw new NoSuchElementException("Queue is empty");
+    }
+
+    return this.codec.decode(this.chunks.get(0), this.head * this.recordSize);
+  }
+
+  /**
+   * Checks if the queue is empty.
+   *
+   * @return true if the queue is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the number of elements in the queue, which may exceed the range
+   * of an int.
+   *
+   * @return the number of elements in the queue
+   */
+  public long size() {
+    return this.size;
+  }
+
+  /**
+   * Removes all the elements of the queue, freeing all but one of its buffers.
+   *
+   * @throws IllegalStateException if the queue is closed
+   */
+  public void clear() {
+    this.ensureOpen();
+
+    while (this.chunks.size() > 1) {
+      DirectBuffers.free(this.chunks.remove(this.chunks.size() - 1));
+    }
+    DirectBuffers.free(this.spareChunk);
+    this.spareChunk = null;
+    this.head = 0;
+    this.tail = 0;
+    this.size = 0;
+  }
+
+  /**
+   * Frees the buffers of the queue, returning their native memory right away;
+   * the queue cannot be used afterwards. Closing a closed queue has no effect.
+   */
+  @Override
+  public void close() {
+    if (this.chunks == null) {
+      return;
+    }
+
+    for (ByteBuffer chunk : this.chunks) {
+      DirectBuffers.free(chunk);
+    }
+    DirectBuffers.free(this.spareChunk);
+    this.chunks = null;
+    this.spareChunk = null;
+    this.head = 0;
+    this.tail = 0;
+    this.size = 0;
+  }
+
+  /**
+   * Returns a string representation of the queue.
+   *
+   * @return a string representation of the queue
+   * @throws IllegalStateException if the queue is closed
+   */
+  @Override
+  public String toString() {
+    this.ensureOpen();
+    StringBuilder rep = new StringBuilder();
+
+    for (long i = this.size - 1; i >= 0; i--) {
+      rep.append(this.elementAt(i)).append(' ');
+    }
+    return rep.toString().trim();
+  }
+
+  /**
+   * Compares the specified object with this queue for equality.
+   *
+   * @param object the object to be compared for equality with this queue
+   * @return true if the specified object is equal to this queue
+   * @throws IllegalStateException if either queue is closed
+   */
+  @Override
+  public boolean equals(Object object) {
+    if (object == null || getClass() != object.getClass()) {
+      return false;
+    }
+    @SuppressWarnings("unchecked")
+    OffHeapQueue<T> queue = (OffHeapQueue<T>) object;
+    this.ensureOpen();
+    queue.ensureOpen();
+
+    if (this.size != queue.size) {
+      return false;
+    }
+
+    for (long i = 0; i < this.size; i++) {
+      if (!this.elementAt(i).equals(queue.elementAt(i))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns a hash code for this queue, consistent with {@link #equals(Object)}.
+   *
+   * @return a hash code computed from the elements of this queue, in order
+   * @throws IllegalStateException if the queue is closed
+   */
+  @Override
+  public int hashCode() {
+    this.ensureOpen();
+    int hash = 1;
+
+    for (long i = 0; i < this.size; i++) {
+      hash = 31 * hash + this.elementAt(i).hashCode();
+    }
+    return hash;
+  }
+
+  /**
+   * Returns the element at the specified distance from the front of the queue.
+   *
+   * @param offset the distance from the front
+   * @return the element at that position
+   */
+  private T elementAt(long offset) {
+    long position = this.head + offset;
+    ByteBuffer chunk = this.chunks.get((int) (position >>> this.chunkShift));
+
+    return this.codec.decode(chunk, (int) (position & this.chunkMask) * this.recordSize);
+  }
+
+  /**
+   * Returns an empty buffer for the end of the chain, reusing the last one
+   * consumed if there is one.
+   *
+   * @return a direct buffer holding a full chunk of records
+   */
+  private ByteBuffer newChunk() {
+    ByteBuffer chunk = this.spareChunk;
+    this.spareChunk = null;
+
+    return chunk != null ? chunk : ByteBuffer.allocateDirect(this.recordSize << this.chunkShift);
+  }
+
+  private void ensureOpen() {
+    if (this.chunks == null) {
+      throw new IllegalStateException("Queue is closed");
+    }
+  }
+}
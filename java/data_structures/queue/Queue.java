@@ -1,34 +1,48 @@
-
 import java.util.NoSuchElementException;
 
+import collections.Collection;
+
 /**
- * A generic Queue implementation using a linked list.
+ * A generic Queue implementation using a growable ring buffer.
+ *
+ * Elements live in a circular array whose capacity is a power of two, so
+ * enqueue and dequeue are O(1) amortized, allocate nothing per element and
+ * walk memory sequentially.
  *
  * @param <T> the type of elements held in this queue
  */
 public class Queue<T> {
 
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private Object[] array;
+  private int head;
+  private int size;
+
   /**
-   * Node class represents each element in the queue.
+   * Constructs an empty queue.
    */
-  private class Node {
-
-    private T element;
-    private Node next;
+  public Queue() {
+    this(DEFAULT_CAPACITY);
+  }
 
-    /**
-     * Constructs a new node with the specified element.
-     *
-     * @param element the element to be stored in the node
-     */
-    private Node(T element) {
-      this.element = element;
-      this.next = null;
+  /**
+   * Constructs an empty queue with room for the specified number of elements
+   * before growing.
+   *
+   * @param capacity the initial capacity of the queue
+   * @throws IllegalArgumentException if the capacity is negative
+   */
+  public Queue(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative");
     }
-  }
 
-  private Node head;
-  private Node tail;
+    this.array = new Object[Queue.tableSize(capacity)];
+    this.head = 0;
+    this.size = 0;
+  }
 
   /**
    * Adds the specified element to the end of the queue.
@@ -40,16 +54,55 @@ public class Queue<T> {
     if (element == null) {
       throw new IllegalArgumentException("Element cannot be null");
     }
-    Node newNode = new Node(element);
 
-    if (this.head == null) {
-      this.head = newNode;
-      this.tail = newNode;
-      return;
+    if (this.size == this.array.length) {
+      this.grow(this.size + 1);
+    }
+
+    this.array[(this.head + this.size) & (this.array.length - 1)] = element;
+    this.size++;
+  }
+
+  /**
+   * Adds all the specified elements to the end of the queue, in iteration
+   * order.
+   *
+   * @param elements the elements to be added to the queue
+   * @throws IllegalArgumentException if any element is null; the elements
+   *                                  before it are still added
+   */
+  public void enqueueAll(Iterable<? extends T> elements) {
+    for (T element : elements) {
+      this.enqueue(element);
+    }
+  }
+
+  /**
+   * Adds all the elements of the specified array to the end of the queue,
+   * growing the buffer at most once.
+   *
+   * @param elements the elements to be added to the queue
+   * @throws IllegalArgumentException if any element is null; nothing is added
+   *                                  in that case
+   */
+  public void enqueueAll(T[] elements) {
+    for (T element : elements) {
+      if (element == null) {
+        throw new IllegalArgumentException("Element cannot be null");
+      }
+    }
+
+    if (this.size + elements.length > this.array.length) {
+      this.grow(this.size + elements.length);
     }
 
-    this.tail.next = newNode;
-    this.tail = newNode;
+    int mask = this.array.length - 1;
+    int tail = this.head + this.size;
+
+    for (T element : elements) {
+      this.array[tail++ & mask] = element;
+    }
+    this.size += elements.length;
   }
 
   /**
@@ -58,19 +111,52 @@ public class Queue<T> {
    * @return the element at the front of the queue
    * @throws NoSuchElementException if the queue is empty
    */
+  @SuppressWarnings("unchecked")
   public T dequeue() {
-    if (this.head == null) {
+    if (this.size == 0) {
       throw new NoSuchElementException("Queue is empty");
     }
 
-    T currentElement = this.head.element;
-    this.head = this.head.next;
+    T currentElement = (T) this.array[this.head];
+    this.array[this.head] = null;
+    this.head = (this.head + 1) & (this.array.length - 1);
+    this.size--;
 
-    if (this.head == null) {
-      this.tail = null;
+    return currentElement;
+  }
+
+  /**
+   * Removes every element of the queue and adds them, front first, to the
+   * specified collection.
+   *
+   * @param collection the collection receiving the elements
+   * @return the number of elements moved
+   */
+  public int drainTo(Collection<? super T> collection) {
+    return this.drainTo(collection, this.size);
+  }
+
+  /**
+   * Removes at most the specified number of elements from the front of the
+   * queue and adds them, in order, to the specified collection.
+   *
+   * @param collection  the collection receiving the elements
+   * @param maxElements the maximum number of elements to move
+   * @return the number of elements moved
+   */
+  @SuppressWarnings("unchecked")
+  public int drainTo(Collection<? super T> collection, int maxElements) {
+    int count = Math.min(Math.max(maxElements, 0), this.size);
+    int mask = this.array.length - 1;
+
+    for (int i = 0; i < count; i++) {
+      collection.add((T) this.array[this.head]);
+      this.array[this.head] = null;
+      this.head = (this.head + 1) & mask;
     }
+    this.size -= count;
 
-    return currentElement;
+    return count;
   }
 
   /**
@@ -79,12 +165,13 @@ public class Queue<T> {
    * @return the element at the front of the queue
    * @throws NoSuchElementException if the queue is empty
    */
+  @SuppressWarnings("unchecked")
   public T peek() {
-    if (this.head == null) {
+    if (this.size == 0) {
       throw new NoSuchElementException("Queue is empty");
     }
 
-    return this.head.element;
+    return (T) this.array[this.head];
   }
 
   /**
@@ -93,7 +180,16 @@ public class Queue<T> {
    * @return true if the queue is empty, false otherwise
    */
   public boolean isEmpty() {
-    return this.head == null;
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the number of elements in the queue.
+   *
+   * @return the number of elements in the queue
+   */
+  public int size() {
+    return this.size;
   }
 
   /**
@@ -105,11 +201,8 @@ public class Queue<T> {
   public String toString() {
     StringBuilder rep = new StringBuilder();
 
-    Node currentNode = this.head;
-
-    while (currentNode != null) {
-      rep.insert(0, currentNode.element + " ");
-      currentNode = currentNode.next;
+    for (int i = this.size - 1; i >= 0; i--) {
+      rep.append(this.elementAt(i)).append(' ');
     }
     return rep.toString().trim();
   }
@@ -128,18 +221,61 @@ public class Queue<T> {
     @SuppressWarnings("unchecked")
     Queue<T> queue = (Queue<T>) object;
 
-    Node nodeThis = this.head;
-    Node nodeObject = queue.head;
+    if (this.size != queue.size) {
+      return false;
+    }
 
-    while (nodeThis != null) {
-      if (nodeObject == null || !nodeThis.element.equals(nodeObject.element)) {
+    for (int i = 0; i < this.size; i++) {
+      if (!this.elementAt(i).equals(queue.elementAt(i))) {
         return false;
       }
+    }
+
+    return true;
+  }
 
-      nodeThis = nodeThis.next;
-      nodeObject = nodeObject.next;
+  /**
+   * Returns the element at the specified distance from the front of the queue.
+   *
+   * @param offset the distance from the front
+   * @return the element at that position
+   */
+  private Object elementAt(int offset) {
+    return this.array[(this.head + offset) & (this.array.length - 1)];
+  }
+
+  /**
+   * Moves the elements into a larger buffer with room for at least the
+   * specified number of elements, unwrapping them to start at index 0.
+   *
+   * @param capacity the minimum capacity required
+   */
+  private void grow(int capacity) {
+    if (capacity > MAX_CAPACITY || capacity < 0) {
+      throw new IllegalStateException("Queue capacity exceeded");
+    }
+
+    Object[] newArray = new Object[Queue.tableSize(Math.max(capacity, this.array.length << 1))];
+    int firstPart = Math.min(this.size, this.array.length - this.head);
+
+    System.arraycopy(this.array, this.head, newArray, 0, firstPart);
+    System.arraycopy(this.array, 0, newArray, firstPart, this.size - firstPart);
+
+    this.array = newArray;
+    this.head = 0;
+  }
+
+  /**
+   * Returns the smallest power of two not less than the specified capacity.
+   *
+   * @param capacity the requested capacity
+   * @return the buffer length to allocate
+   */
+  private static int tableSize(int capacity) {
+    if (capacity <= 1) {
+      return 1;
     }
 
-    return nodeObject == null;
+    return capacity >= MAX_CAPACITY ? MAX_CAPACITY : Integer.highestOneBit(capacity - 1) << 1;
   }
 }
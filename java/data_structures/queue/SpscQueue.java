@@ -0,0 +1,237 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, wait-free queue for handing elements from exactly one producer
+ * thread to exactly one consumer thread.
+ *
+ * Only the producer may call {@code enqueue/offer}, and only the consumer may
+ * call {@code dequeue/poll/peek/drain}. With a single writer per index, no
+ * compare-and-set is needed: each side publishes its index with a lazy
+ * (release) store, and keeps a cached copy of the other side's index so it
+ * only reads the shared cache line when the cached value says the queue is
+ * full or empty. The head and tail indices sit 128 bytes apart so the two
+ * threads never write to the same cache line.
+ *
+ * @param <T> the type of elements held in this queue
+ */
+public class SpscQueue<T> {
+
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  // slots of the index array; each index shares its line only with the
+  // cached copy its own thread keeps of the other index
+  private static final int HEAD = 16;
+  private static final int TAIL_CACHE = 17;
+  private static final int TAIL = 32;
+  private static final int HEAD_CACHE = 33;
+  private static final int INDEX_SLOTS = 48;
+
+  private final Object[] buffer;
+  private final int mask;
+  private final AtomicLongArray indices;
+
+  /**
+   * Constructs an empty queue that holds at least the specified number of
+   * elements. The capacity is rounded up to a power of two.
+   *
+   * @param capacity the minimum capacity of the queue
+   * @throws IllegalArgumentException if the capacity is not positive or too
+   *                                  large
+   */
+  public SpscQueue(int capacity) {
+    if (capacity < 1 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+    }
+
+    int length = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+    this.buffer = new Object[length];
+    this.mask = length - 1;
+    this.indices = new AtomicLongArray(INDEX_SLOTS);
+  }
+
+  /**
+   * Adds the specified element to the end of the queue. Producer only.
+   *
+   * @param element the element to be added to the queue
+   * @throws IllegalArgumentException if the element is null
+   * @throws IllegalStateException    if the queue is full
+   */
+  public void enqueue(T element) {
+    if (!this.offer(element)) {
+      throw new IllegalStateException("Queue is full");
+    }
+  }
+
+  /**
+   * Adds the specified element to the end of the queue if there is room for
+   * it. Producer only.
+   *
+   * @param element the element to be added to the queue
+   * @return true if the element was added, false if the queue is full
+   * @throws IllegalArgumentException if the element is null
+   */
+  public boolean offer(T element) {
+    if (element == null) {
+      throw new IllegalArgumentException("Element cannot be null");
+    }
+
+    long tail = this.indices.getPlain(TAIL);
+
+    if (tail - this.indices.getPlain(HEAD_CACHE) >= this.buffer.length) {
+      long head = this.indices.getAcquire(HEAD);
+      this.indices.setPlain(HEAD_CACHE, head);
+
+      if (tail - head >= this.buffer.length) {
+        return false;
+      }
+    }
+
+    this.buffer[(int) tail & this.mask] = element;
+    this.indices.lazySet(TAIL, tail + 1);
+    return true;
+  }
+
+  /**
+   * Removes and returns the element at the front of the queue. Consumer only.
+   *
+   * @return the element at the front of the queue
+   * @throws NoSuchElementException if the queue is empty
+   */
+  public T dequeue() {
+    T element = this.poll();
+
+    if (element == null) {
+      throw new NoSuchElementException("Queue is empty");
+    }
+    return element;
+  }
+
+  /**
+   * Removes and returns the element at the front of the queue. Consumer only.
+   *
+   * @return the element at the front of the queue, or null if it is empty
+   */
+  @SuppressWarnings("unchecked")
+  public T poll() {
+    long head = this.indices.getPlain(HEAD);
+
+    if (!this.available(head)) {
+      return null;
+    }
+
+    int index = (int) head & this.mask;
+    T element = (T) this.buffer[index];
+    this.buffer[index] = null;
+    this.indices.lazySet(HEAD, head + 1);
+
+    return element;
+  }
+
+  /**
+   * Removes up to the specified number of elements from the front of the
+   * queue and passes them, in order, to the specified action. The slots are
+   * handed back to the producer with a single store once the batch is done.
+   * If the action throws, the elements already passed to it stay removed and
+   * the rest stay in the queue. Consumer only.
+   *
+   * @param action      the action receiving the elements
+   * @param maxElements the maximum number of elements to remove
+   * @return the number of elements removed
+   */
+  @SuppressWarnings("unchecked")
+  public int drain(Consumer<? super T> action, int maxElements) {
+    long head = this.indices.getPlain(HEAD);
+    long tail = this.indices.getAcquire(TAIL);
+    this.indices.setPlain(TAIL_CACHE, tail);
+
+    int count = (int) Math.min(tail - head, Math.max(maxElements, 0));
+    int consumed = 0;
+
+    try {
+      while (consumed < count) {
+        int index = (int) (head + consumed) & this.mask;
+        T element = (T) this.buffer[index];
+        this.buffer[index] = null;
+        consumed++;
+        action.accept(element);
+      }
+    } finally {
+      // publish exactly the slots already emptied, even if the action threw
+      if (consumed > 0) {
+        this.indices.lazySet(HEAD, head + consumed);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the element at the front of the queue without removing it.
+   * Consumer only.
+   *
+   * @return the element at the front of the queue
+   * @throws NoSuchElementException if the queue is empty
+   */
+  @SuppressWarnings("unchecked")
+  public T peek() {
+    long head = this.indices.getPlain(HEAD);
+
+    if (!this.available(head)) {
+      throw new NoSuchElementException("Queue is empty");
+    }
+
+    return (T) this.buffer[(int) head & this.mask];
+  }
+
+  /**
+   * Checks if the queue is empty. Exact on the consumer thread; a snapshot
+   * elsewhere.
+   *
+   * @return true if the queue is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return this.size() == 0;
+  }
+
+  /**
+   * Returns the number of elements in the queue. The value is a snapshot and
+   * may be stale as soon as it is returned.
+   *
+   * @return the number of elements in the queue
+   */
+  public int size() {
+    long head = this.indices.getAcquire(HEAD);
+    long tail = this.indices.getAcquire(TAIL);
+
+    return (int) Math.max(0, Math.min(tail - head, this.buffer.length));
+  }
+
+  /**
+   * Returns the number of elements the queue can hold.
+   *
+   * @return the capacity of the queue
+   */
+  public int capacity() {
+    return this.buffer.length;
+  }
+
+  /**
+   * Checks, from the consumer side, whether an element is published at the
+   * head, refreshing the cached tail only when it says the queue is empty.
+   *
+   * @param head the current head index
+   * @return true if an element can be read at the head
+   */
+  private boolean available(long head) {
+    if (this.indices.getPlain(TAIL_CACHE) > head) {
+      return true;
+    }
+
+    long tail = this.indices.getAcquire(TAIL);
+    this.indices.setPlain(TAIL_CACHE, tail);
+
+    return tail > head;
+  }
+}
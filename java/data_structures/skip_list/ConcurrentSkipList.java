@@ -0,0 +1,616 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import collections.Collection;
+
+/**
+ * A lock-free sorted set that any number of threads may read and modify
+ * concurrently, implemented as a skip list.
+ *
+ * Every element sits in a node that belongs to the bottom list and, with
+ * probability 1/2 per level, to each of the sparser lists above it, so
+ * searches skip over most of the set and take O(log n) expected steps. Links
+ * are swung with compare-and-set. A removal first marks the links of its node,
+ * which deletes it logically, and the node is then unlinked by whichever
+ * thread next walks past it; the mark shares the atomic reference with the
+ * link, so nothing can be inserted after a node that is being removed.
+ *
+ * Elements are ordered by a comparator, or by their natural ordering, and an
+ * element equal to one already present is not added again. Lookups and
+ * navigation never modify the list and never wait. Iterators are weakly
+ * consistent: they walk the bottom list as it is, never throw
+ * {@link java.util.ConcurrentModificationException} and may or may not reflect
+ * modifications made after their creation.
+ *
+ * @param <T> the type of elements held in this set
+ */
+public class ConcurrentSkipList<T> implements Collection<T> {
+
+  private static final int MAX_LEVEL = 32;
+
+  /**
+   * Node class represents each element in the skip list, with one link per
+   * level it belongs to.
+   */
+  private static final class Node<T> {
+
+    private final T element;
+    private final AtomicMarkableReference<Node<T>>[] next;
+
+    /**
+     * Constructs a new node with the specified element and number of levels.
+     *
+     * @param element the element to be stored in the node
+     * @param levels  the number of levels the node belongs to
+     */
+    @SuppressWarnings("unchecked")
+    private Node(T element, int levels) {
+      this.element = element;
+      this.next = (AtomicMarkableReference<Node<T>>[]) new AtomicMarkableReference<?>[levels];
+
+      for (int level = 0; level < levels; level++) {
+        this.next[level] = new AtomicMarkableReference<>(null, false);
+      }
+    }
+  }
+
+  /**
+   * A weakly consistent iterator over the elements of the set, up to an
+   * optional upper bound.
+   */
+  private class IteratorCSL implements Iterator<T> {
+
+    private Node<T> nextNode;
+    private final T hi;
+
+    /**
+     * Constructs an iterator starting at the specified node.
+     *
+     * @param first the first node to return, or null
+     * @param hi    the inclusive upper bound, or null for none
+     */
+    private IteratorCSL(Node<T> first, T hi) {
+      this.hi = hi;
+      this.nextNode = this.bounded(first);
+    }
+
+    /**
+     * Returns {@code true} if the iteration has more elements.
+     *
+     * @return {@code true} if the iteration has more elements
+     */
+    @Override
+    public boolean hasNext() {
+      return this.nextNode != null;
+    }
+
+    /**
+     * Returns the next element in the iteration.
+     *
+     * @return the next element in the iteration
+     * @throws NoSuchElementException if the iteration has no more elements
+     */
+    @Override
+    public T next() {
+      if (this.nextNode == null) {
+        throw new NoSuchElementException();
+      }
+
+      T element = this.nextNode.element;
+      this.nextNode = this.bounded(successor(this.nextNode));
+
+      return element;
+    }
+
+    private Node<T> bounded(Node<T> node) {
+      if (node != null && this.hi != null && comparator.compare(node.element, this.hi) > 0) {
+        return null;
+      }
+      return node;
+    }
+  }
+
+  private final Comparator<? super T> comparator;
+  private final Node<T> head;
+  private final LongAdder elements;
+
+  /**
+   * Constructs an empty set ordered by the natural ordering of its elements.
+   */
+  public ConcurrentSkipList() {
+    this(ConcurrentSkipList.<T>naturalOrder());
+  }
+
+  /**
+   * Constructs a set containing the elements of the specified collection,
+   * ordered by their natural ordering.
+   *
+   * @param collection the collection whose elements are to be placed into this
+   *                   set
+   */
+  public ConcurrentSkipList(Collection<T> collection) {
+    this(collection, ConcurrentSkipList.<T>naturalOrder());
+  }
+
+  /**
+   * Constructs an empty set ordered by the specified comparator.
+   *
+   * @param comparator the comparator used to order the elements
+   * @throws IllegalArgumentException if the comparator is null
+   */
+  public ConcurrentSkipList(Comparator<? super T> comparator) {
+    if (comparator == null) {
+      throw new IllegalArgumentException("Comparator cannot be null");
+    }
+
+    this.comparator = comparator;
+    this.head = new Node<>(null, MAX_LEVEL);
+    this.elements = new LongAdder();
+  }
+
+  /**
+   * Constructs a set containing the elements of the specified collection,
+   * ordered by the specified comparator.
+   *
+   * @param collection the collection whose elements are to be placed into this
+   *                   set
+   * @param comparator the comparator used to order the elements
+   * @throws IllegalArgumentException if the comparator is null
+   */
+  public ConcurrentSkipList(Collection<T> collection, Comparator<? super T> comparator) {
+    this(comparator);
+    for (T elem : collection) {
+      this.add(elem);
+    }
+  }
+
+  /**
+   * Adds the specified element to the set, unless an equal element is already
+   * present.
+   *
+   * @param element the element to be added
+   * @throws IllegalArgumentException if the element is null
+   */
+  @Override
+  public void add(T element) {
+    if (element == null) {
+      throw new IllegalArgumentException("Element cannot be null");
+    }
+
+    int levels = 1 + Math.min(Integer.numberOfTrailingZeros(~ThreadLocalRandom.current().nextInt()),
+        MAX_LEVEL - 1);
+    @SuppressWarnings("unchecked")
+    Node<T>[] predecessors = (Node<T>[]) new Node<?>[MAX_LEVEL];
+    @SuppressWarnings("unchecked")
+    Node<T>[] successors = (Node<T>[]) new Node<?>[MAX_LEVEL];
+
+    while (true) {
+      if (this.find(element, predecessors, successors)) {
+        return;
+      }
+
+      Node<T> newNode = new Node<>(element, levels);
+      for (int level = 0; level < levels; level++) {
+        newNode.next[level].set(successors[level], false);
+      }
+
+      // the node belongs to the set once it is linked into the bottom list
+      if (!predecessors[0].next[0].compareAndSet(successors[0], newNode, false, false)) {
+        continue;
+      }
+      this.elements.increment();
+
+      for (int level = 1; level < levels; level++) {
+        if (!this.linkLevel(newNode, level, predecessors, successors)) {
+          return;
+        }
+      }
+      return;
+    }
+  }
+
+  /**
+   * Removes the specified element from the set, if it is present.
+   *
+   * @param element the element to be removed
+   */
+  @Override
+  public void remove(T element) {
+    if (element == null) {
+      return;
+    }
+
+    @SuppressWarnings("unchecked")
+    Node<T>[] predecessors = (Node<T>[]) new Node<?>[MAX_LEVEL];
+    @SuppressWarnings("unchecked")
+    Node<T>[] successors = (Node<T>[]) new Node<?>[MAX_LEVEL];
+
+    if (!this.find(element, predecessors, successors)) {
+      return;
+    }
+
+    Node<T> node = successors[0];
+    boolean[] marked = { false };
+
+    // mark the upper levels first so no thread links above a dying node
+    for (int level = node.next.length - 1; level > 0; level--) {
+      Node<T> successor = node.next[level].get(marked);
+
+      while (!marked[0]) {
+        node.next[level].compareAndSet(successor, successor, false, true);
+        successor = node.next[level].get(marked);
+      }
+    }
+
+    Node<T> successor = node.next[0].get(marked);
+    while (!marked[0]) {
+      if (node.next[0].compareAndSet(successor, successor, false, true)) {
+        // this thread removed the element; unlink the node on the way
+        this.elements.decrement();
+        this.find(element, predecessors, successors);
+        return;
+      }
+      successor = node.next[0].get(marked);
+    }
+  }
+
+  /**
+   * Checks if the set contains an element equal to the specified one.
+   *
+   * @param element the element to be searched for
+   * @return true if the set contains the element, false otherwise
+   */
+  @Override
+  public boolean contains(T element) {
+    return this.search(element) != null;
+  }
+
+  /**
+   * Searches for the specified element in this set.
+   *
+   * @param element the element to be searched for
+   * @return the element of the set equal to the specified one, or
+   *         {@code null} if there is none
+   */
+  public T search(T element) {
+    if (element == null) {
+      return null;
+    }
+
+    Node<T> node = this.aboveNode(element, true);
+
+    return node != null && this.comparator.compare(node.element, element) == 0 ? node.element : null;
+  }
+
+  /**
+   * Checks if the set is empty.
+   *
+   * @return true if the set is empty, false otherwise
+   */
+  @Override
+  public boolean isEmpty() {
+    return this.successor(this.head) == null;
+  }
+
+  /**
+   * Gets the number of elements in the set. Under concurrent modification the
+   * count is only an estimate.
+   *
+   * @return the number of elements in the set
+   */
+  @Override
+  public int getElements() {
+    return (int) Math.max(0, Math.min(this.elements.sum(), Integer.MAX_VALUE));
+  }
+
+  /**
+   * Removes all the elements present in the set when the call starts.
+   */
+  @Override
+  public void clear() {
+    for (Node<T> node = this.successor(this.head); node != null; node = this.successor(node)) {
+      this.remove(node.element);
+    }
+  }
+
+  /**
+   * Returns a weakly consistent iterator over the elements in this set in
+   * ascending order.
+   *
+   * @return an iterator over the elements in this set
+   */
+  @Override
+  public Iterator<T> iterator() {
+    return new IteratorCSL(this.successor(this.head), null);
+  }
+
+  /**
+   * Returns a weakly consistent iterator over the elements of this set between
+   * {@code lo} and {@code hi}, both inclusive, in ascending order. The iterator
+   * descends straight to {@code lo} and stops at {@code hi}.
+   *
+   * @param lo the lower bound of the range
+   * @param hi the upper bound of the range
+   * @return an iterator over the elements in the range
+   * @throws IllegalArgumentException if a bound is null
+   */
+  public Iterator<T> range(T lo, T hi) {
+    if (lo == null || hi == null) {
+      throw new IllegalArgumentException("Bounds cannot be null");
+    }
+
+    return new IteratorCSL(this.aboveNode(lo, true), hi);
+  }
+
+  /**
+   * Returns the smallest element in this set.
+   *
+   * @return the smallest element
+   * @throws NoSuchElementException if the set is empty
+   */
+  public T first() {
+    Node<T> node = this.successor(this.head);
+
+    if (node == null) {
+      throw new NoSuchElementException("The set is empty");
+    }
+    return node.element;
+  }
+
+  /**
+   * Returns the largest element in this set.
+   *
+   * @return the largest element
+   * @throws NoSuchElementException if the set is empty
+   */
+  public T last() {
+    Node<T> predecessor = this.head;
+
+    for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+      Node<T> node = this.live(predecessor.next[level].getReference(), level);
+
+      while (node != null) {
+        predecessor = node;
+        node = this.live(node.next[level].getReference(), level);
+      }
+    }
+
+    if (predecessor == this.head) {
+      throw new NoSuchElementException("The set is empty");
+    }
+    return predecessor.element;
+  }
+
+  /**
+   * Returns the largest element in this set less than or equal to the
+   * specified element.
+   *
+   * @param element the element to compare against
+   * @return the greatest element not above the element, or {@code null} if
+   *         there is none
+   */
+  public T floor(T element) {
+    Node<T> node = this.belowNode(element, true);
+    return node == this.head ? null : node.element;
+  }
+
+  /**
+   * Returns the largest element in this set strictly less than the specified
+   * element.
+   *
+   * @param element the element to compare against
+   * @return the greatest element below the element, or {@code null} if there
+   *         is none
+   */
+  public T lower(T element) {
+    Node<T> node = this.belowNode(element, false);
+    return node == this.head ? null : node.element;
+  }
+
+  /**
+   * Returns the smallest element in this set greater than or equal to the
+   * specified element.
+   *
+   * @param element the element to compare against
+   * @return the least element not below the element, or {@code null} if there
+   *         is none
+   */
+  public T ceiling(T element) {
+    Node<T> node = this.aboveNode(element, true);
+    return node == null ? null : node.element;
+  }
+
+  /**
+   * Returns the smallest element in this set strictly greater than the
+   * specified element.
+   *
+   * @param element the element to compare against
+   * @return the least element above the element, or {@code null} if there is
+   *         none
+   */
+  public T higher(T element) {
+    Node<T> node = this.aboveNode(element, false);
+    return node == null ? null : node.element;
+  }
+
+  /**
+   * Returns the comparator used to order this set.
+   *
+   * @return the comparator of this set
+   */
+  public Comparator<? super T> comparator() {
+    return this.comparator;
+  }
+
+  /**
+   * Returns a string representation of the set.
+   *
+   * @return a string representation of the set
+   */
+  @Override
+  public String toString() {
+    StringBuilder rep = new StringBuilder("[");
+
+    for (T element : this) {
+      if (rep.length() > 1) {
+        rep.append(", ");
+      }
+      rep.append(element);
+    }
+
+    return rep.append(']').toString();
+  }
+
+  /**
+   * Finds, at every level, the last node before the specified element and the
+   * first node not before it, unlinking the removed nodes met on the way.
+   *
+   * @param element      the element to be located
+   * @param predecessors receives the last node before the element per level
+   * @param successors   receives the first node not before it per level, or
+   *                     null
+   * @return true if the bottom successor holds an element equal to it
+   */
+  private boolean find(T element, Node<T>[] predecessors, Node<T>[] successors) {
+    boolean[] marked = { false };
+
+    retry: while (true) {
+      Node<T> predecessor = this.head;
+
+      for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+        Node<T> current = predecessor.next[level].getReference();
+
+        while (current != null) {
+          Node<T> successor = current.next[level].get(marked);
+
+          if (marked[0]) {
+            if (!predecessor.next[level].compareAndSet(current, successor, false, false)) {
+              continue retry;
+            }
+            current = successor;
+            continue;
+          }
+
+          if (this.comparator.compare(current.element, element) >= 0) {
+            break;
+          }
+
+          predecessor = current;
+          current = successor;
+        }
+
+        predecessors[level] = predecessor;
+        successors[level] = current;
+      }
+
+      return successors[0] != null && this.comparator.compare(successors[0].element, element) == 0;
+    }
+  }
+
+  /**
+   * Links a node already in the bottom list into the specified upper level,
+   * searching again whenever a concurrent change gets in the way.
+   *
+   * @return false if the node was removed meanwhile and linking must stop
+   */
+  private boolean linkLevel(Node<T> node, int level, Node<T>[] predecessors, Node<T>[] successors) {
+    boolean[] marked = { false };
+
+    while (true) {
+      Node<T> successor = successors[level];
+      Node<T> current = node.next[level].get(marked);
+
+      if (marked[0]) {
+        return false;
+      }
+
+      // point the node at the current successor before publishing it
+      if (current != successor && !node.next[level].compareAndSet(current, successor, false, false)) {
+        continue;
+      }
+
+      if (predecessors[level].next[level].compareAndSet(successor, node, false, false)) {
+        return true;
+      }
+
+      this.find(node.element, predecessors, successors);
+      if (successors[0] != node) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Returns the first node not removed at or after the specified one on the
+   * specified level.
+   */
+  private Node<T> live(Node<T> node, int level) {
+    while (node != null && node.next[level].isMarked()) {
+      node = node.next[level].getReference();
+    }
+    return node;
+  }
+
+  /**
+   * Returns the first node not removed after the specified one in the bottom
+   * list.
+   */
+  private Node<T> successor(Node<T> node) {
+    return this.live(node.next[0].getReference(), 0);
+  }
+
+  /**
+   * Returns the last node holding an element less than (or, if
+   * {@code inclusive}, equal to) the specified one, or the head if there is
+   * none. The descent skips removed nodes without unlinking them.
+   */
+  private Node<T> belowNode(T element, boolean inclusive) {
+    Node<T> predecessor = this.head;
+
+    for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+      Node<T> current = this.live(predecessor.next[level].getReference(), level);
+
+      while (current != null) {
+        int comparison = this.comparator.compare(current.element, element);
+
+        if (comparison > 0 || (comparison == 0 && !inclusive)) {
+          break;
+        }
+
+        predecessor = current;
+        current = this.live(current.next[level].getReference(), level);
+      }
+    }
+
+    return predecessor;
+  }
+
+  /**
+   * Returns the first node not removed holding an element greater than (or,
+   * if {@code inclusive}, equal to) the specified one, or null if there is
+   * none.
+   */
+  private Node<T> aboveNode(T element, boolean inclusive) {
+    Node<T> node = this.successor(this.belowNode(element, !inclusive));
+
+    // smaller elements may have been inserted right after the predecessor
+    while (node != null) {
+      int comparison = this.comparator.compare(node.element, element);
+
+      if (comparison > 0 || (comparison == 0 && inclusive)) {
+        break;
+      }
+      node = this.successor(node);
+    }
+    return node;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Comparator<? super T> naturalOrder() {
+    return (Comparator<? super T>) Comparator.naturalOrder();
+  }
+}
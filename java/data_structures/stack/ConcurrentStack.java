@@ -0,0 +1,202 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free Stack that any number of threads may push to and pop from
+ * concurrently (a Treiber stack).
+ *
+ * The top is swung with a compare-and-set. Every push allocates a fresh node
+ * and popped nodes are never reused, so a node cannot reappear at the top
+ * while another thread still holds a reference to it; the garbage collector
+ * thus rules out the ABA problem without version stamps.
+ *
+ * Optionally, an elimination array absorbs contention: a push or pop whose
+ * compare-and-set fails tries to meet an opposite operation in a random slot
+ * of the array, and a matched pair completes without touching the top.
+ *
+ * @param <T> the type of elements held in this stack
+ */
+public class ConcurrentStack<T> {
+
+  private static final int ELIMINATION_SPINS = 64;
+
+  /**
+   * Node class represents each element in the Stack.
+   */
+  private static final class Node<T> {
+
+    private final T element;
+    private Node<T> next;
+
+    /**
+     * Constructs a new node with the specified element.
+     *
+     * @param element the element to be stored in the node
+     */
+    private Node(T element) {
+      this.element = element;
+    }
+  }
+
+  private final AtomicReference<Node<T>> top;
+  private final AtomicReferenceArray<Node<T>> elimination;
+
+  /**
+   * Constructs an empty stack without an elimination array.
+   */
+  public ConcurrentStack() {
+    this(0);
+  }
+
+  /**
+   * Constructs an empty stack whose failed operations try to pair up through
+   * an elimination array with the specified number of slots.
+   *
+   * @param eliminationSlots the number of slots, or 0 to disable elimination
+   * @throws IllegalArgumentException if the number of slots is negative
+   */
+  public ConcurrentStack(int eliminationSlots) {
+    if (eliminationSlots < 0) {
+      throw new IllegalArgumentException("Elimination slots cannot be negative");
+    }
+
+    this.top = new AtomicReference<>();
+    this.elimination = eliminationSlots == 0 ? null : new AtomicReferenceArray<>(eliminationSlots);
+  }
+
+  /**
+   * Adds the specified element to the top of the stack.
+   *
+   * @param element the element to be added to the stack
+   * @throws IllegalArgumentException if the element is null
+   */
+  public void push(T element) {
+    if (element == null) {
+      throw new IllegalArgumentException();
+    }
+
+    Node<T> newNode = new Node<>(element);
+
+    while (true) {
+      Node<T> currentTop = this.top.get();
+      newNode.next = currentTop;
+
+      if (this.top.compareAndSet(currentTop, newNode)) {
+        return;
+      }
+
+      if (this.elimination != null && this.eliminatePush(newNode)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Removes and returns the element at the top of the stack.
+   *
+   * @return the element at the top of the stack
+   * @throws NoSuchElementException if the stack is empty
+   */
+  public T pop() {
+    T element = this.poll();
+
+    if (element == null) {
+      throw new NoSuchElementException();
+    }
+    return element;
+  }
+
+  /**
+   * Removes and returns the element at the top of the stack, if any.
+   *
+   * @return the element at the top of the stack, or null if it is empty
+   */
+  public T poll() {
+    while (true) {
+      Node<T> currentTop = this.top.get();
+
+      if (currentTop == null) {
+        return null;
+      }
+
+      if (this.top.compareAndSet(currentTop, currentTop.next)) {
+        return currentTop.element;
+      }
+
+      if (this.elimination != null) {
+        Node<T> node = this.eliminatePop();
+
+        if (node != null) {
+          return node.element;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the element at the top of the stack without removing it.
+   *
+   * @return the element at the top of the stack
+   * @throws NoSuchElementException if the stack is empty
+   */
+  public T peek() {
+    Node<T> currentTop = this.top.get();
+
+    if (currentTop == null) {
+      throw new NoSuchElementException();
+    }
+
+    return currentTop.element;
+  }
+
+  /**
+   * Checks if the stack is empty.
+   *
+   * @return true if the stack is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return this.top.get() == null;
+  }
+
+  /**
+   * Offers the node in a random free slot of the elimination array and waits
+   * briefly for a pop to take it.
+   *
+   * @param node the node being pushed
+   * @return true if a pop took the node, false if it must retry on the stack
+   */
+  private boolean eliminatePush(Node<T> node) {
+    int slot = ThreadLocalRandom.current().nextInt(this.elimination.length());
+
+    if (!this.elimination.compareAndSet(slot, null, node)) {
+      return false;
+    }
+
+    for (int i = 0; i < ELIMINATION_SPINS; i++) {
+      if (this.elimination.get(slot) != node) {
+        return true;
+      }
+      Thread.onSpinWait();
+    }
+
+    // withdraw the offer; failing means a pop took it in the meantime
+    return !this.elimination.compareAndSet(slot, node, null);
+  }
+
+  /**
+   * Takes a node waiting in a random slot of the elimination array, if any.
+   *
+   * @return the node of a concurrent push, or null if none was found
+   */
+  private Node<T> eliminatePop() {
+    int slot = ThreadLocalRandom.current().nextInt(this.elimination.length());
+    Node<T> node = this.elimination.get(slot);
+
+    if (node != null && this.elimination.compareAndSet(slot, node, null)) {
+      return node;
+    }
+    return null;
+  }
+}
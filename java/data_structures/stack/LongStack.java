@@ -0,0 +1,197 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A stack of primitive long values offering the API of {@link Stack}.
+ *
+ * Values are stored unboxed in a growable array with the top at the highest
+ * index, which doubles when full and halves when it falls to a quarter full,
+ * never below its initial capacity.
+ */
+public class LongStack {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private long[] array;
+  private int size;
+  private final int minCapacity;
+
+  /**
+   * Constructs an empty stack.
+   */
+  public LongStack() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty stack with room for the specified number of values
+   * before growing. The stack never shrinks below this capacity.
+   *
+   * @param capacity the initial capacity of the stack
+   * @throws IllegalArgumentException if the capacity is negative
+   */
+  public LongStack(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative");
+    }
+
+    this.array = new long[capacity];
+    this.size = 0;
+    this.minCapacity = capacity;
+  }
+
+  /**
+   * Adds the specified value to the top of the stack.
+   *
+   * @param value the value to be added to the stack
+   */
+  public void push(long value) {
+    if (this.size == this.array.length) {
+      this.array = Arrays.copyOf(this.array, Math.max(this.size + 1, this.size << 1));
+    }
+
+    this.array[this.size++] = value;
+  }
+
+  /**
+   * Adds all the values of the specified array to the stack, in order, so the
+   * last one ends on top.
+   *
+   * @param values the values to be added to the stack
+   */
+  public void pushAll(long[] values) {
+    if (this.size + values.length > this.array.length) {
+      this.array = Arrays.copyOf(this.array, Math.max(this.size + values.length, this.array.length << 1));
+    }
+
+    System.arraycopy(values, 0, this.array, this.size, values.length);
+    this.size += values.length;
+  }
+
+  /**
+   * Removes and returns the value at the top of the stack.
+   *
+   * @return the value at the top of the stack
+   * @throws NoSuchElementException if the stack is empty
+   */
+  public long pop() {
+    if (this.size == 0) {
+      throw new NoSuchElementException();
+    }
+
+    long value = this.array[--this.size];
+    this.shrink();
+
+    return value;
+  }
+
+  /**
+   * Pops values into the specified array until it is full or the stack is
+   * empty. The former top ends at index 0.
+   *
+   * @param target the array receiving the values
+   * @return the number of values popped
+   */
+  public int popInto(long[] target) {
+    int count = Math.min(target.length, this.size);
+
+    for (int i = 0; i < count; i++) {
+      target[i] = this.array[this.size - 1 - i];
+    }
+
+    this.size -= count;
+    this.shrink();
+
+    return count;
+  }
+
+  /**
+   * Returns the value at the top of the stack without removing it.
+   *
+   * @return the value at the top of the stack
+   * @throws NoSuchElementException if the stack is empty
+   */
+  public long peek() {
+    if (this.size == 0) {
+      throw new NoSuchElementException();
+    }
+
+    return this.array[this.size - 1];
+  }
+
+  /**
+   * Checks if the stack is empty.
+   *
+   * @return true if the stack is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the number of values in the stack.
+   *
+   * @return the number of values in the stack
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns a string representation of the stack.
+   *
+   * @return a string representation of the stack
+   */
+  @Override
+  public String toString() {
+    StringBuilder rep = new StringBuilder();
+
+    for (int i = this.size - 1; i >= 0; i--) {
+      rep.append(this.array[i]).append('\n');
+    }
+
+    return rep.toString();
+  }
+
+  /**
+   * Compares the specified object with this stack for equality.
+   *
+   * @param object the object to be compared for equality with this stack
+   * @return true if the specified object is equal to this stack
+   */
+  @Override
+  public boolean equals(Object object) {
+    if (object == null || getClass() != object.getClass())
+      return false;
+    LongStack stack = (LongStack) object;
+
+    return Arrays.equals(this.array, 0, this.size, stack.array, 0, stack.size);
+  }
+
+  /**
+   * Returns a hash code for this stack, consistent with {@link #equals(Object)}.
+   *
+   * @return a hash code computed from the elements of this stack, in order
+   */
+  @Override
+  public int hashCode() {
+    int hash = 1;
+
+    for (int i = 0; i < this.size; i++) {
+      hash = 31 * hash + Long.hashCode(this.array[i]);
+    }
+    return hash;
+  }
+
+  /**
+   * Halves the array once it is a quarter full, keeping at least the initial
+   * capacity.
+   */
+  private void shrink() {
+    int half = this.array.length >> 1;
+
+    if (this.size <= this.array.length >> 2 && half >= this.minCapacity && half >= DEFAULT_CAPACITY) {
+      this.array = Arrays.copyOf(this.array, half);
+    }
+  }
+}
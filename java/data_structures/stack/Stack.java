@@ -1,32 +1,47 @@
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
 /**
- * A generic Stack implementation using a linked list.
+ * A generic Stack implementation using a growable array.
+ *
+ * Elements are stored contiguously with the top at the highest index, so push
+ * and pop are O(1) amortized and allocate nothing once the array is large
+ * enough. The array doubles when full and halves when it falls to a quarter
+ * full, never below its initial capacity.
  *
  * @param <T> the type of elements held in this stack
  */
 public class Stack<T> {
 
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private Object[] array;
+  private int size;
+  private final int minCapacity;
+
   /**
-   * Node class represents each element in the Stack.
+   * Constructs an empty stack.
    */
-  private class Node {
-
-    private T element;
-    private Node next;
-
-    /**
-     * Constructs a new node with the specified element.
-     *
-     * @param element the element to be stored in the node
-     */
-    private Node(T element) {
-      this.element = element;
-      this.next = null;
-    }
+  public Stack() {
+    this(DEFAULT_CAPACITY);
   }
 
-  private Node top;
+  /**
+   * Constructs an empty stack with room for the specified number of elements
+   * before growing. The stack never shrinks below this capacity.
+   *
+   * @param capacity the initial capacity of the stack
+   * @throws IllegalArgumentException if the capacity is negative
+   */
+  public Stack(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative");
+    }
+
+    this.array = new Object[capacity];
+    this.size = 0;
+    this.minCapacity = capacity;
+  }
 
   /**
    * Adds the specified element to the top of the stack.
@@ -39,15 +54,48 @@ public class Stack<T> {
       throw new IllegalArgumentException();
     }
 
-    Node newNode = new Node(element);
+    if (this.size == this.array.length) {
+      this.resize(Math.max(this.size + 1, this.size << 1));
+    }
+
+    this.array[this.size++] = element;
+  }
+
+  /**
+   * Adds all the elements of the specified array to the stack, in order, so
+   * the last one ends on top. The array grows at most once.
+   *
+   * @param elements the elements to be added to the stack
+   * @throws IllegalArgumentException if any element is null; nothing is added
+   *                                  in that case
+   */
+  public void pushAll(T[] elements) {
+    for (T element : elements) {
+      if (element == null) {
+        throw new IllegalArgumentException();
+      }
+    }
 
-    if (this.top == null) {
-      this.top = newNode;
-      return;
+    if (this.size + elements.length > this.array.length) {
+      this.resize(Math.max(this.size + elements.length, this.array.length << 1));
     }
 
-    newNode.next = this.top;
-    this.top = newNode;
+    System.arraycopy(elements, 0, this.array, this.size, elements.length);
+    this.size += elements.length;
+  }
+
+  /**
+   * Adds all the specified elements to the stack, in iteration order, so the
+   * last one ends on top.
+   *
+   * @param elements the elements to be added to the stack
+   * @throws IllegalArgumentException if any element is null; the elements
+   *                                  before it are still added
+   */
+  public void pushAll(Iterable<? extends T> elements) {
+    for (T element : elements) {
+      this.push(element);
+    }
   }
 
   /**
@@ -56,29 +104,55 @@ public class Stack<T> {
    * @return the element at the top of the stack
    * @throws NoSuchElementException if the stack is empty
    */
+  @SuppressWarnings("unchecked")
   public T pop() {
-    if (this.top == null) {
+    if (this.size == 0) {
       throw new NoSuchElementException();
     }
 
-    T currentElement = this.top.element;
-    this.top = this.top.next;
+    T currentElement = (T) this.array[--this.size];
+    this.array[this.size] = null;
+    this.shrink();
 
     return currentElement;
   }
 
+  /**
+   * Pops elements into the specified array until it is full or the stack is
+   * empty. The former top ends at index 0.
+   *
+   * @param target the array receiving the elements
+   * @return the number of elements popped
+   */
+  public int popInto(T[] target) {
+    int count = Math.min(target.length, this.size);
+
+    for (int i = 0; i < count; i++) {
+      @SuppressWarnings("unchecked")
+      T element = (T) this.array[this.size - 1 - i];
+      target[i] = element;
+    }
+
+    Arrays.fill(this.array, this.size - count, this.size, null);
+    this.size -= count;
+    this.shrink();
+
+    return count;
+  }
+
   /**
    * Returns the element at the top of the stack without removing it.
    *
    * @return the element at the top of the stack
    * @throws NoSuchElementException if the stack is empty
    */
+  @SuppressWarnings("unchecked")
   public T peek() {
-    if (this.top == null) {
+    if (this.size == 0) {
       throw new NoSuchElementException();
     }
 
-    return this.top.element;
+    return (T) this.array[this.size - 1];
   }
 
   /**
@@ -87,7 +161,16 @@ public class Stack<T> {
    * @return true if the stack is empty, false otherwise
    */
   public boolean isEmpty() {
-    return this.top == null;
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the number of elements in the stack.
+   *
+   * @return the number of elements in the stack
+   */
+  public int size() {
+    return this.size;
   }
 
   /**
@@ -97,16 +180,13 @@ public class Stack<T> {
    */
   @Override
   public String toString() {
-    String rep = "";
+    StringBuilder rep = new StringBuilder();
 
-    Node currentNode = this.top;
-
-    while (currentNode != null) {
-      rep += currentNode.element + "\n";
-      currentNode = currentNode.next;
+    for (int i = this.size - 1; i >= 0; i--) {
+      rep.append(this.array[i]).append('\n');
     }
 
-    return rep;
+    return rep.toString();
   }
 
   /**
@@ -122,18 +202,38 @@ public class Stack<T> {
     @SuppressWarnings("unchecked")
     Stack<T> stack = (Stack<T>) object;
 
-    Node nodeThis = this.top;
-    Node nodeObject = stack.top;
+    if (this.size != stack.size) {
+      return false;
+    }
 
-    while (nodeThis != null) {
-      if (nodeObject == null || !nodeThis.element.equals(nodeObject.element)) {
+    for (int i = 0; i < this.size; i++) {
+      if (!this.array[i].equals(stack.array[i])) {
         return false;
       }
+    }
 
-      nodeThis = nodeThis.next;
-      nodeObject = nodeObject.next;
+    return true;
+  }
+
+  /**
+   * Halves the array once it is a quarter full, keeping at least the initial
+   * capacity. Shrinking at a quarter rather than a half keeps alternating
+   * pushes and pops at the boundary from resizing every time.
+   */
+  private void shrink() {
+    int half = this.array.length >> 1;
+
+    if (this.size <= this.array.length >> 2 && half >= this.minCapacity && half >= DEFAULT_CAPACITY) {
+      this.resize(half);
     }
+  }
 
-    return nodeObject == null;
+  /**
+   * Moves the elements into an array of the specified length.
+   *
+   * @param capacity the new length of the array
+   */
+  private void resize(int capacity) {
+    this.array = Arrays.copyOf(this.array, capacity);
   }
 }